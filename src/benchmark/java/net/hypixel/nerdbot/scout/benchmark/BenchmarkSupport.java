@@ -0,0 +1,50 @@
+package net.hypixel.nerdbot.scout.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Minimal timing and allocation harness shared by the benchmark entry points in this package.
+ * <p>
+ * Allocation is read from the HotSpot per-thread allocation counter, so every measured run happens on the calling
+ * thread. Results are printed as time and bytes allocated per MB of input.
+ */
+final class BenchmarkSupport {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps results reachable so the JIT cannot drop the measured work
+    private static volatile Object sink;
+
+    private BenchmarkSupport() {
+    }
+
+    static void run(String name, long inputBytes, int warmupIterations, int iterations, Supplier<?> task) {
+        for (int i = 0; i < warmupIterations; i++) {
+            sink = task.get();
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            sink = task.get();
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        double inputMegabytes = inputBytes / (1024.0 * 1024.0);
+
+        System.out.printf("%-32s %8.2f ms/op %10.2f ms/MB %10.2f MB alloc/MB%n",
+            name,
+            elapsedNanos / 1_000_000.0 / iterations,
+            elapsedNanos / 1_000_000.0 / iterations / inputMegabytes,
+            allocated / (1024.0 * 1024.0) / iterations / inputMegabytes);
+    }
+
+    static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,79 @@
+package net.hypixel.nerdbot.scout.benchmark;
+
+import net.hypixel.nerdbot.marmalade.json.JsonUtils;
+import net.hypixel.nerdbot.scout.diff.ArrayKeys;
+import net.hypixel.nerdbot.scout.diff.JsonDiff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares {@link JsonDiff} against the previous map-based {@link JsonUtils#findChangedValues} on synthetic fire sale
+ * style payloads of increasing size, with a handful of changed, inserted and removed entries.
+ * <p>
+ * Usage: {@code mvn -P benchmark compile exec:java [-Dexec.args="<max MB> <iterations>"]}
+ */
+public final class JsonDiffBenchmark {
+
+    private static final ArrayKeys SALE_KEYS = ArrayKeys.of(Map.of("/sales", List.of("item_id")));
+
+    private JsonDiffBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxMegabytes = BenchmarkSupport.intArg(args, 0, 8);
+        int iterations = BenchmarkSupport.intArg(args, 1, 10);
+
+        for (int megabytes = 1; megabytes <= maxMegabytes; megabytes *= 2) {
+            Random random = new Random(megabytes);
+            int entries = megabytes * 1024 * 1024 / 120;
+            String oldJson = payload(entries, random, -1);
+            String newJson = payload(entries, random, entries / 2);
+            long inputBytes = oldJson.getBytes(StandardCharsets.UTF_8).length + newJson.getBytes(StandardCharsets.UTF_8).length;
+
+            System.out.printf("%n%d MB payload (%d entries)%n", megabytes, entries);
+            BenchmarkSupport.run("JsonUtils.findChangedValues", inputBytes, 3, iterations, () -> JsonUtils.findChangedValues(
+                JsonUtils.parseStringToMap(oldJson),
+                JsonUtils.parseStringToMap(newJson),
+                ""
+            ));
+            BenchmarkSupport.run("JsonDiff (index)", inputBytes, 3, iterations, () -> JsonDiff.diff(oldJson, newJson, ArrayKeys.NONE));
+            BenchmarkSupport.run("JsonDiff (keyed)", inputBytes, 3, iterations, () -> JsonDiff.diff(oldJson, newJson, SALE_KEYS));
+        }
+    }
+
+    /**
+     * Builds a payload of {@code entries} sales. When {@code insertAt} is not negative, one entry is inserted there,
+     * the last one is dropped and every hundredth price is changed.
+     */
+    private static String payload(int entries, Random random, int insertAt) {
+        StringBuilder builder = new StringBuilder(entries * 128).append("{\"success\":true,\"sales\":[");
+
+        for (int i = 0; i < entries; i++) {
+            if (i == insertAt) {
+                appendSale(builder, "INSERTED_ITEM", 1);
+                builder.append(',');
+            }
+
+            if (insertAt >= 0 && i == entries - 1) {
+                break;
+            }
+
+            int price = insertAt >= 0 && i % 100 == 0 ? 2_000 + random.nextInt(1_000) : 1_000;
+            appendSale(builder, "ITEM_" + i, price);
+            builder.append(',');
+        }
+
+        builder.setLength(builder.length() - 1);
+        return builder.append("]}").toString();
+    }
+
+    private static void appendSale(StringBuilder builder, String itemId, int price) {
+        builder.append("{\"item_id\":\"").append(itemId)
+            .append("\",\"start\":1700000000000,\"end\":1700086400000,\"amount\":500,\"price\":")
+            .append(price)
+            .append('}');
+    }
+}
@@ -0,0 +1,126 @@
+package net.hypixel.nerdbot.scout.benchmark;
+
+import net.hypixel.nerdbot.marmalade.json.DataSerialization;
+import net.hypixel.nerdbot.scout.handler.status.StatusPageChangeDetector;
+import net.hypixel.nerdbot.scout.handler.status.StatusPageConfig;
+import net.hypixel.nerdbot.scout.handler.status.StatusPageResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares {@link StatusPageChangeDetector#detectChanges} against the previous pairwise {@code anyMatch} scan (run
+ * twice, as the handler used to for the ping decision) on status pages with large incident histories.
+ * <p>
+ * Usage: {@code mvn -P benchmark compile exec:java -Dbenchmark.class=net.hypixel.nerdbot.scout.benchmark.StatusChangeBenchmark
+ * [-Dexec.args="<max incidents> <iterations>"]}
+ */
+public final class StatusChangeBenchmark {
+
+    private StatusChangeBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxIncidents = BenchmarkSupport.intArg(args, 0, 16_000);
+        int iterations = BenchmarkSupport.intArg(args, 1, 20);
+        StatusPageChangeDetector detector = new StatusPageChangeDetector(new StatusPageConfig());
+
+        for (int incidents = 1_000; incidents <= maxIncidents; incidents *= 2) {
+            StatusPageResponse oldData = statusPage(incidents, false);
+            StatusPageResponse newData = statusPage(incidents, true);
+            long inputBytes = DataSerialization.GSON.toJson(oldData).getBytes(StandardCharsets.UTF_8).length
+                + DataSerialization.GSON.toJson(newData).getBytes(StandardCharsets.UTF_8).length;
+
+            System.out.printf("%n%d incidents and maintenances (%d KB)%n", incidents, inputBytes / 1024);
+            BenchmarkSupport.run("pairwise scan (x2)", inputBytes, 2, iterations, () -> {
+                int changes = 0;
+                for (int pass = 0; pass < 2; pass++) {
+                    changes += pairwiseIncidents(detector, oldData, newData) + pairwiseMaintenances(detector, oldData, newData);
+                }
+                return changes;
+            });
+            BenchmarkSupport.run("detectChanges", inputBytes, 2, iterations, () -> detector.detectChanges(oldData, newData));
+        }
+    }
+
+    private static int pairwiseIncidents(StatusPageChangeDetector detector, StatusPageResponse oldData, StatusPageResponse newData) {
+        return (int) newData.getIncidents().stream()
+            .filter(newIncident -> oldData.getIncidents().stream()
+                .noneMatch(oldIncident -> oldIncident.getId().equals(newIncident.getId()))
+                || oldData.getIncidents().stream()
+                .anyMatch(oldIncident -> oldIncident.getId().equals(newIncident.getId())
+                    && detector.hasIncidentChanged(oldIncident, newIncident)))
+            .count();
+    }
+
+    private static int pairwiseMaintenances(StatusPageChangeDetector detector, StatusPageResponse oldData, StatusPageResponse newData) {
+        return (int) newData.getScheduledMaintenances().stream()
+            .filter(newMaintenance -> oldData.getScheduledMaintenances().stream()
+                .noneMatch(oldMaintenance -> oldMaintenance.getId().equals(newMaintenance.getId()))
+                || oldData.getScheduledMaintenances().stream()
+                .anyMatch(oldMaintenance -> oldMaintenance.getId().equals(newMaintenance.getId())
+                    && detector.hasMaintenanceChanged(oldMaintenance, newMaintenance)))
+            .count();
+    }
+
+    /**
+     * Builds a status page with {@code count} resolved incidents and completed maintenances, newest first. The changed
+     * variant adds one open incident and maintenance and posts an update to every hundredth existing one.
+     */
+    private static StatusPageResponse statusPage(int count, boolean changed) {
+        List<StatusPageResponse.Incident> incidents = new ArrayList<>(count + 1);
+        List<StatusPageResponse.ScheduledMaintenance> maintenances = new ArrayList<>(count + 1);
+
+        if (changed) {
+            incidents.add(incident("incident-new", "investigating", 1));
+            maintenances.add(maintenance("maintenance-new", "scheduled", 1));
+        }
+
+        for (int i = 0; i < count; i++) {
+            int updates = changed && i % 100 == 0 ? 4 : 3;
+            incidents.add(incident("incident-" + i, "resolved", updates));
+            maintenances.add(maintenance("maintenance-" + i, "completed", updates));
+        }
+
+        StatusPageResponse response = new StatusPageResponse();
+        response.setIncidents(incidents);
+        response.setScheduledMaintenances(maintenances);
+        return response;
+    }
+
+    private static StatusPageResponse.Incident incident(String id, String status, int updates) {
+        StatusPageResponse.Incident incident = new StatusPageResponse.Incident();
+        incident.setId(id);
+        incident.setName("Incident " + id);
+        incident.setStatus(status);
+        incident.setImpact("minor");
+        incident.setCreatedAt("2026-01-01T00:00:00.000Z");
+        incident.setIncidentUpdates(updates(id, status, updates));
+        return incident;
+    }
+
+    private static StatusPageResponse.ScheduledMaintenance maintenance(String id, String status, int updates) {
+        StatusPageResponse.ScheduledMaintenance maintenance = new StatusPageResponse.ScheduledMaintenance();
+        maintenance.setId(id);
+        maintenance.setName("Maintenance " + id);
+        maintenance.setStatus(status);
+        maintenance.setScheduledFor("2026-01-01T00:00:00.000Z");
+        maintenance.setScheduledUntil("2026-01-01T02:00:00.000Z");
+        maintenance.setIncidentUpdates(updates(id, status, updates));
+        return maintenance;
+    }
+
+    private static List<StatusPageResponse.Incident.IncidentUpdate> updates(String id, String status, int count) {
+        List<StatusPageResponse.Incident.IncidentUpdate> updates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StatusPageResponse.Incident.IncidentUpdate update = new StatusPageResponse.Incident.IncidentUpdate();
+            update.setId(id + "-update-" + i);
+            update.setIncidentId(id);
+            update.setStatus(status);
+            update.setBody("We are continuing to monitor the situation.");
+            updates.add(update);
+        }
+        return updates;
+    }
+}
@@ -0,0 +1,81 @@
+package net.hypixel.nerdbot.scout.benchmark;
+
+import net.hypixel.nerdbot.scout.xml.SkyBlockThreadParser;
+import net.hypixel.nerdbot.scout.xml.SkyBlockThreadParser.HypixelThread;
+import net.hypixel.nerdbot.scout.xml.SkyBlockThreadStreamParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares the full SAX parse of the forum feed against the incremental {@link SkyBlockThreadStreamParser} on
+ * synthetic feeds shaped like the real forum RSS output, where only the newest couple of threads are unseen.
+ * <p>
+ * Usage: {@code mvn -P benchmark compile exec:java -Dbenchmark.class=net.hypixel.nerdbot.scout.benchmark.ThreadFeedBenchmark
+ * [-Dexec.args="<max items> <iterations>"]}
+ */
+public final class ThreadFeedBenchmark {
+
+    private static final int FIRST_GUID = 3_000_000;
+    private static final int NEW_THREADS = 2;
+
+    private ThreadFeedBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxItems = BenchmarkSupport.intArg(args, 0, 200);
+        int iterations = BenchmarkSupport.intArg(args, 1, 200);
+
+        for (int items = 25; items <= maxItems; items *= 2) {
+            String feed = feed(items);
+            int highWaterGuid = FIRST_GUID + items - 1 - NEW_THREADS;
+            long inputBytes = feed.getBytes(StandardCharsets.UTF_8).length;
+
+            System.out.printf("%n%d items (%d KB)%n", items, inputBytes / 1024);
+            BenchmarkSupport.run("SkyBlockThreadParser (SAX)", inputBytes, 20, iterations, () -> {
+                List<HypixelThread> threads = new ArrayList<>(SkyBlockThreadParser.parseSkyBlockThreads(feed));
+                threads.sort(Comparator.comparingInt(HypixelThread::getGuid));
+                return threads.stream().filter(thread -> thread.getGuid() > highWaterGuid).count();
+            });
+            BenchmarkSupport.run("SkyBlockThreadStreamParser (StAX)", inputBytes, 20, iterations,
+                () -> SkyBlockThreadStreamParser.parseNewThreads(feed, highWaterGuid, thread -> {
+                }));
+        }
+    }
+
+    /**
+     * Builds a feed of {@code items} threads, newest first, each with a few kilobytes of post content.
+     */
+    private static String feed(int items) {
+        StringBuilder builder = new StringBuilder(items * 4096)
+            .append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+            .append("<rss version=\"2.0\" xmlns:atom=\"http://www.w3.org/2005/Atom\" xmlns:dc=\"http://purl.org/dc/elements/1.1/\" ")
+            .append("xmlns:content=\"http://purl.org/rss/1.0/modules/content/\" xmlns:slash=\"http://purl.org/rss/1.0/modules/slash/\">\n")
+            .append("<channel>\n<title>SkyBlock Patch Notes</title>\n")
+            .append("<description>Latest threads</description>\n")
+            .append("<pubDate>Sat, 17 Oct 2026 12:00:00 +0000</pubDate>\n")
+            .append("<lastBuildDate>Sat, 17 Oct 2026 12:00:00 +0000</lastBuildDate>\n")
+            .append("<generator>Hypixel Forums</generator>\n")
+            .append("<link>https://hypixel.net/forums/skyblock-patch-notes.158/</link>\n")
+            .append("<atom:link rel=\"self\" type=\"application/rss+xml\" href=\"https://hypixel.net/forums/skyblock-patch-notes.158/index.rss\"/>\n");
+
+        String body = "<p>Balance changes, bug fixes &amp; new content for this update.</p>".repeat(48);
+        for (int i = items - 1; i >= 0; i--) {
+            int guid = FIRST_GUID + i;
+            builder.append("<item>\n")
+                .append("<title>SkyBlock v0.").append(i).append(" Patch Notes</title>\n")
+                .append("<pubDate>Sat, 17 Oct 2026 12:00:00 +0000</pubDate>\n")
+                .append("<link>https://hypixel.net/threads/skyblock-patch-notes.").append(guid).append("/</link>\n")
+                .append("<guid isPermaLink=\"false\">").append(guid).append("</guid>\n")
+                .append("<author>invalid@example.com (Developer)</author>\n")
+                .append("<dc:creator>Developer</dc:creator>\n")
+                .append("<content:encoded><![CDATA[").append(body).append("]]></content:encoded>\n")
+                .append("<slash:comments>").append(i % 50).append("</slash:comments>\n")
+                .append("</item>\n");
+        }
+
+        return builder.append("</channel>\n</rss>\n").toString();
+    }
+}
@@ -1,12 +1,21 @@
 package net.hypixel.nerdbot.scout;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.hypixel.nerdbot.marmalade.json.DataSerialization;
+import net.hypixel.nerdbot.scout.config.ConfigFileWatcher;
 import net.hypixel.nerdbot.scout.config.WatcherAppConfig;
 import net.hypixel.nerdbot.scout.config.WatcherConfig;
+import net.hypixel.nerdbot.scout.fetch.FetchEngine;
+import net.hypixel.nerdbot.scout.route.RoutingTable;
+import net.hypixel.nerdbot.scout.route.SubscriberRegistry;
+import net.hypixel.nerdbot.scout.schedule.TimingWheelScheduler;
 import net.hypixel.nerdbot.scout.watcher.HypixelThreadURLWatcher;
 import net.hypixel.nerdbot.scout.watcher.URLWatcher;
+import net.hypixel.nerdbot.scout.watcher.WatcherStateStore;
+import net.hypixel.nerdbot.scout.webhook.WebhookDispatcher;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -15,18 +24,45 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class Main {
 
-    private static final List<AutoCloseable> activeWatchers = new ArrayList<>();
-    private static final List<WatcherConfig> activeWatcherConfigs = new ArrayList<>();
+    /**
+     * Watcher config properties that can change without restarting the watcher.
+     */
+    private static final List<String> IN_PLACE_PROPERTIES = List.of("interval", "timeUnit", "webhookUrl", "alertRoleId", "destinations");
+    /**
+     * Top-level config sections that are only read on startup. Kept at their running values on reload by
+     * {@link #keepStartupOnlySections(WatcherAppConfig, WatcherAppConfig)}.
+     */
+    private static final List<String> STARTUP_ONLY_SECTIONS = List.of(
+        "statusPageConfig", "fetchConfig", "schedulerConfig", "webhookConfig",
+        "stateDirectory", "subscribersFile", "startupDeadlineSeconds", "watchConfig"
+    );
+
+    /**
+     * Running watchers by {@link WatcherConfig#getKey() key}, in config order. Replaced as a whole on every
+     * change, so readers never need to lock.
+     */
+    private static volatile Map<String, ManagedWatcher> runningWatchers = Map.of();
+    private static ConfigFileWatcher configFileWatcher;
+    private static boolean shuttingDown;
 
     @Getter
-    private static WatcherAppConfig config;
+    private static volatile WatcherAppConfig config;
 
     public static void main(String[] args) {
         String configPath = "config.json";
@@ -49,12 +85,41 @@ public class Main {
         log.info("Loaded config: {} watchers configured", config.getWatchers() != null ? config.getWatchers().size() : 0);
 
         ScoutMetrics.startMetricsServer();
+        FetchEngine.initialize(config.getFetchConfig());
+        TimingWheelScheduler.initialize(config.getSchedulerConfig());
+        WebhookDispatcher.initialize(config.getWebhookConfig());
+        WatcherStateStore.initialize(config.getStateDirectory());
+        SubscriberRegistry registry = SubscriberRegistry.initialize(config.getSubscribersFile());
+        try {
+            registry.watch();
+        } catch (IOException exception) {
+            log.warn("Failed to watch {} for changes, subscribers will only be read on startup", config.getSubscribersFile(), exception);
+        }
 
         startWatchers();
 
+        if (config.isWatchConfig()) {
+            String path = configPath;
+            try {
+                configFileWatcher = ConfigFileWatcher.start(Path.of(path), () -> reloadConfig(path));
+            } catch (IOException exception) {
+                log.warn("Failed to watch {} for changes, config will only be read on startup", path, exception);
+            }
+        }
+
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutting down watchers...");
+            synchronized (Main.class) {
+                shuttingDown = true;
+                if (configFileWatcher != null) {
+                    configFileWatcher.close();
+                }
+            }
             stopWatchers();
+            SubscriberRegistry.getInstance().close();
+            WebhookDispatcher.getInstance().close();
+            TimingWheelScheduler.getInstance().close();
+            FetchEngine.getInstance().close();
             ScoutMetrics.stopMetricsServer();
         }));
 
@@ -69,28 +134,6 @@ public class Main {
         }
     }
 
-    /**
-     * Finds the webhook URL configured for the watcher that uses the given handler class.
-     */
-    public static String getWebhookUrlForHandler(String handlerClassName) {
-        return activeWatcherConfigs.stream()
-            .filter(wc -> handlerClassName.equals(wc.getHandlerClass()))
-            .map(WatcherConfig::getWebhookUrl)
-            .findFirst()
-            .orElse(null);
-    }
-
-    /**
-     * Finds the alert role ID configured for the watcher that uses the given handler class.
-     */
-    public static String getAlertRoleIdForHandler(String handlerClassName) {
-        return activeWatcherConfigs.stream()
-            .filter(wc -> handlerClassName.equals(wc.getHandlerClass()))
-            .map(WatcherConfig::getAlertRoleId)
-            .findFirst()
-            .orElse(null);
-    }
-
     private static WatcherAppConfig loadConfig(String path) {
         try (Reader reader = Files.newBufferedReader(Path.of(path), StandardCharsets.UTF_8)) {
             return DataSerialization.GSON.fromJson(reader, WatcherAppConfig.class);
@@ -100,28 +143,223 @@ public class Main {
         }
     }
 
-    private static void startWatchers() {
-        if (config.getWatchers() == null || config.getWatchers().isEmpty()) {
+    /**
+     * Creates every enabled watcher, then seeds all of their baselines in parallel. Each watcher starts polling as
+     * soon as its own baseline is ready, or once the startup deadline has passed, so one slow upstream does not hold
+     * up the others and the main thread never waits on the network.
+     */
+    private static synchronized void startWatchers() {
+        Map<String, WatcherConfig> wanted = enabledWatchers(config);
+        if (wanted.isEmpty()) {
             log.info("No watchers configured");
             return;
         }
 
-        config.getWatchers().stream()
-            .filter(WatcherConfig::isEnabled)
-            .forEach(Main::startWatcherFromConfig);
+        long startNanos = System.nanoTime();
+        Map<String, ManagedWatcher> created = new LinkedHashMap<>();
+        wanted.forEach((key, watcherConfig) -> {
+            ManagedWatcher watcher = createWatcher(watcherConfig);
+            if (watcher != null) {
+                created.put(key, watcher);
+            }
+        });
+
+        runningWatchers = Collections.unmodifiableMap(created);
+        publishRoutes();
+        startAll(created.values()).whenComplete((ignored, throwable) -> {
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            ScoutMetrics.STARTUP_DURATION.set(seconds);
+            log.info("{} watchers ready after {} ms", created.size(), Math.round(seconds * 1000));
+        });
     }
 
-    private static void startWatcherFromConfig(WatcherConfig watcherConfig) {
+    /**
+     * Re-reads the config file and applies it to the running watchers. Watchers whose config is unchanged keep
+     * running untouched, interval and route changes are applied in place, and only watchers that were added, removed
+     * or changed in any other way are started or stopped. A restarted watcher picks its baseline back up from the
+     * {@link WatcherStateStore}.
+     */
+    private static synchronized void reloadConfig(String path) {
+        if (shuttingDown) {
+            return;
+        }
+
+        WatcherAppConfig updated;
+        try {
+            updated = loadConfig(path);
+        } catch (RuntimeException exception) {
+            log.error("Ignoring invalid config in {}: {}", path, exception.getMessage());
+            return;
+        }
+
+        if (updated == null) {
+            return;
+        }
+
+        JsonObject previousTree = DataSerialization.GSON.toJsonTree(config).getAsJsonObject();
+        JsonObject updatedTree = DataSerialization.GSON.toJsonTree(updated).getAsJsonObject();
+        List<String> startupOnly = STARTUP_ONLY_SECTIONS.stream()
+            .filter(section -> !Objects.equals(previousTree.get(section), updatedTree.get(section)))
+            .toList();
+        if (!startupOnly.isEmpty()) {
+            log.warn("Changes to {} in {} only take effect after a restart", startupOnly, path);
+        }
+
+        keepStartupOnlySections(config, updated);
+        config = updated;
+
+        Map<String, WatcherConfig> wanted = enabledWatchers(updated);
+        Map<String, ManagedWatcher> current = runningWatchers;
+        Map<String, ManagedWatcher> next = new LinkedHashMap<>();
+        List<ManagedWatcher> toStart = new ArrayList<>();
+        List<String> stoppedUrls = new ArrayList<>();
+        int added = 0;
+        int removed = 0;
+        int restarted = 0;
+        int changedInPlace = 0;
+
+        for (Map.Entry<String, ManagedWatcher> entry : current.entrySet()) {
+            if (!wanted.containsKey(entry.getKey())) {
+                stopWatcher(entry.getValue());
+                stoppedUrls.add(entry.getValue().config().getUrl());
+                removed++;
+            }
+        }
+
+        for (Map.Entry<String, WatcherConfig> entry : wanted.entrySet()) {
+            WatcherConfig watcherConfig = entry.getValue();
+            ManagedWatcher running = current.get(entry.getKey());
+
+            if (running != null && sameExcept(running.config(), watcherConfig, IN_PLACE_PROPERTIES)) {
+                if (running.config().getInterval() != watcherConfig.getInterval() || running.config().getTimeUnit() != watcherConfig.getTimeUnit()) {
+                    running.watcher().setInterval(watcherConfig.getInterval(), watcherConfig.getTimeUnit());
+                }
+                if (!sameExcept(running.config(), watcherConfig, List.of())) {
+                    changedInPlace++;
+                }
+
+                next.put(entry.getKey(), new ManagedWatcher(watcherConfig, running.watcher(), running.start()));
+                continue;
+            }
+
+            if (running != null) {
+                stopWatcher(running);
+                stoppedUrls.add(running.config().getUrl());
+                restarted++;
+            } else {
+                added++;
+            }
+
+            ManagedWatcher created = createWatcher(watcherConfig);
+            if (created != null) {
+                next.put(entry.getKey(), created);
+                toStart.add(created);
+            }
+        }
+
+        runningWatchers = Collections.unmodifiableMap(next);
+        publishRoutes();
+        removeUnwatchedUrlMetrics(stoppedUrls);
+        startAll(toStart);
+
+        log.info("Reloaded {}: {} watchers added, {} removed, {} restarted, {} updated in place",
+            path, added, removed, restarted, changedInPlace);
+    }
+
+    /**
+     * Copies the {@link #STARTUP_ONLY_SECTIONS} of the running config into a reloaded one, so that nothing started
+     * after the reload, such as a restarted watcher, picks up a value that should only apply after a restart.
+     */
+    private static void keepStartupOnlySections(WatcherAppConfig running, WatcherAppConfig updated) {
+        updated.setStatusPageConfig(running.getStatusPageConfig());
+        updated.setFetchConfig(running.getFetchConfig());
+        updated.setSchedulerConfig(running.getSchedulerConfig());
+        updated.setWebhookConfig(running.getWebhookConfig());
+        updated.setStateDirectory(running.getStateDirectory());
+        updated.setSubscribersFile(running.getSubscribersFile());
+        updated.setStartupDeadlineSeconds(running.getStartupDeadlineSeconds());
+        updated.setWatchConfig(running.isWatchConfig());
+    }
+
+    /**
+     * Enabled watchers of the config by key, in config order.
+     */
+    private static Map<String, WatcherConfig> enabledWatchers(WatcherAppConfig appConfig) {
+        Map<String, WatcherConfig> watchers = new LinkedHashMap<>();
+        if (appConfig.getWatchers() == null) {
+            return watchers;
+        }
+
+        for (WatcherConfig watcherConfig : appConfig.getWatchers()) {
+            if (watcherConfig.isEnabled() && watchers.putIfAbsent(watcherConfig.getKey(), watcherConfig) != null) {
+                log.warn("Ignoring duplicate watcher for {} with handler {}", watcherConfig.getUrl(), watcherConfig.getHandlerClass());
+            }
+        }
+
+        return watchers;
+    }
+
+    private static boolean sameExcept(WatcherConfig first, WatcherConfig second, List<String> ignoredProperties) {
+        JsonElement firstTree = DataSerialization.GSON.toJsonTree(first);
+        JsonElement secondTree = DataSerialization.GSON.toJsonTree(second);
+
+        for (String property : ignoredProperties) {
+            firstTree.getAsJsonObject().remove(property);
+            secondTree.getAsJsonObject().remove(property);
+        }
+
+        return firstTree.equals(secondTree);
+    }
+
+    private static CompletableFuture<Void> startAll(Collection<ManagedWatcher> watchers) {
+        long startNanos = System.nanoTime();
+        long deadlineMillis = TimeUnit.SECONDS.toMillis(config.getStartupDeadlineSeconds());
+
+        return CompletableFuture.allOf(watchers.stream()
+            .map(watcher -> startWhenSeeded(watcher, startNanos, deadlineMillis))
+            .toArray(CompletableFuture[]::new));
+    }
+
+    private static CompletableFuture<Void> startWhenSeeded(ManagedWatcher pending, long startNanos, long deadlineMillis) {
+        URLWatcher watcher = pending.watcher();
+        CompletableFuture<Void> seed = watcher.seedBaseline();
+
+        return seed
+            .exceptionally(throwable -> {
+                log.warn("Failed to seed baseline for {}", watcher.getUrl(), throwable);
+                return null;
+            })
+            .completeOnTimeout(null, deadlineMillis, TimeUnit.MILLISECONDS)
+            .thenRun(() -> {
+                if (!seed.isDone()) {
+                    log.warn("Baseline for {} not ready within {} ms, starting without it", watcher.getUrl(), deadlineMillis);
+                }
+
+                try {
+                    pending.start().run();
+                    log.debug("Watcher for {} ready after {} ms", watcher.getUrl(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                } catch (RuntimeException exception) {
+                    log.warn("Failed to start watcher for {}", watcher.getUrl(), exception);
+                }
+            });
+    }
+
+    /**
+     * Instantiates and configures the watcher (and handler) described by the config without starting it.
+     *
+     * @return the watcher and how to start it, or {@code null} if the config is invalid
+     */
+    private static ManagedWatcher createWatcher(WatcherConfig watcherConfig) {
         try {
             if (!isAllowed(watcherConfig.getClassName())) {
                 log.warn("Watcher class {} not permitted by class allowlist", watcherConfig.getClassName());
-                return;
+                return null;
             }
 
             Class<?> watcherClazz = Class.forName(watcherConfig.getClassName());
             if (!URLWatcher.class.isAssignableFrom(watcherClazz)) {
                 log.warn("Watcher class {} does not extend URLWatcher", watcherConfig.getClassName());
-                return;
+                return null;
             }
 
             URLWatcher watcher;
@@ -133,52 +371,86 @@ public class Main {
                 watcher = (URLWatcher) declaredConstructor.newInstance(watcherConfig.getUrl());
             }
 
+            watcher.configure(watcherConfig);
+
             if (watcherConfig.getHandlerClass() != null && !watcherConfig.getHandlerClass().isBlank()) {
                 if (!isAllowed(watcherConfig.getHandlerClass())) {
                     log.warn("Handler class {} not permitted by class allowlist", watcherConfig.getHandlerClass());
-                    return;
+                    return null;
                 }
 
                 Class<?> handlerClazz = Class.forName(watcherConfig.getHandlerClass());
                 if (!URLWatcher.DataHandler.class.isAssignableFrom(handlerClazz)) {
                     log.warn("Handler class {} does not implement URLWatcher.DataHandler", watcherConfig.getHandlerClass());
-                    return;
+                    return null;
                 }
 
                 URLWatcher.DataHandler handler = (URLWatcher.DataHandler) handlerClazz.getDeclaredConstructor().newInstance();
+                handler.configure(watcherConfig);
                 log.info("Starting watcher {} on {} with handler {} (interval={} {})",
                     watcherClazz.getName(), watcherConfig.getUrl(), handlerClazz.getName(), watcherConfig.getInterval(), watcherConfig.getTimeUnit());
 
-                activeWatcherConfigs.add(watcherConfig);
-                watcher.startWatching(watcherConfig.getInterval(), watcherConfig.getTimeUnit(), handler);
-                activeWatchers.add(watcher);
+                URLWatcher created = watcher;
+                return new ManagedWatcher(watcherConfig, watcher,
+                    () -> created.startWatching(watcherConfig.getInterval(), watcherConfig.getTimeUnit(), handler));
             } else if (watcher instanceof HypixelThreadURLWatcher hypixelWatcher) {
                 log.info("Starting HypixelThreadURLWatcher on {} (interval={} {})", watcherConfig.getUrl(), watcherConfig.getInterval(), watcherConfig.getTimeUnit());
 
-                activeWatcherConfigs.add(watcherConfig);
-                hypixelWatcher.startWatching(watcherConfig.getInterval(), watcherConfig.getTimeUnit());
-                activeWatchers.add(hypixelWatcher);
+                return new ManagedWatcher(watcherConfig, hypixelWatcher,
+                    () -> hypixelWatcher.startWatchingNow(watcherConfig.getInterval(), watcherConfig.getTimeUnit()));
             } else {
                 log.warn("Watcher {} requires a handlerClass but none was provided", watcherConfig.getClassName());
             }
         } catch (Exception exception) {
             log.warn("Failed to start watcher from config: {}", watcherConfig, exception);
         }
+
+        return null;
     }
 
     private static boolean isAllowed(String className) {
         return className != null && className.startsWith("net.hypixel.nerdbot.");
     }
 
-    private static void stopWatchers() {
-        activeWatchers.forEach(watcher -> {
-            try {
-                watcher.close();
-            } catch (Exception exception) {
-                log.warn("Failed to stop watcher {}", watcher.getClass().getSimpleName(), exception);
+    private record ManagedWatcher(WatcherConfig config, URLWatcher watcher, Runnable start) {
+    }
+
+    private static void stopWatcher(ManagedWatcher managed) {
+        try {
+            managed.watcher().close();
+        } catch (Exception exception) {
+            log.warn("Failed to stop watcher for {}", managed.config().getUrl(), exception);
+        }
+    }
+
+    /**
+     * Removes the metric series of stopped watchers whose URL no running watcher polls any more, so URLs dropped
+     * from the config do not keep reporting their last values.
+     */
+    private static void removeUnwatchedUrlMetrics(Collection<String> stoppedUrls) {
+        Set<String> watchedUrls = new HashSet<>();
+        runningWatchers.values().forEach(managed -> watchedUrls.add(managed.config().getUrl()));
+
+        for (String url : stoppedUrls) {
+            if (url != null && watchedUrls.add(url)) {
+                ScoutMetrics.removeUrl(url);
             }
-        });
-        activeWatchers.clear();
-        activeWatcherConfigs.clear();
+        }
+    }
+
+    /**
+     * Publishes the routes of the running watchers. Called whenever {@link #runningWatchers} is replaced, before any
+     * new watcher starts.
+     */
+    private static void publishRoutes() {
+        Map<URLWatcher, WatcherConfig> routes = new IdentityHashMap<>();
+        runningWatchers.values().forEach(managed -> routes.put(managed.watcher(), managed.config()));
+        RoutingTable.publish(RoutingTable.build(routes));
+    }
+
+    private static synchronized void stopWatchers() {
+        runningWatchers.values().forEach(Main::stopWatcher);
+        runningWatchers = Map.of();
+        RoutingTable.publish(RoutingTable.EMPTY);
     }
 }
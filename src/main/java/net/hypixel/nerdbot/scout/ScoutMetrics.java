@@ -7,6 +7,8 @@ import io.prometheus.client.exporter.HTTPServer;
 import io.prometheus.client.hotspot.DefaultExports;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+
 @Slf4j
 public final class ScoutMetrics {
 
@@ -25,12 +27,100 @@ public final class ScoutMetrics {
         .buckets(0.1, 0.5, 1, 2, 5, 10)
         .register();
 
+    public static final Counter URL_FETCH_BYTES = Counter.build()
+        .name("scout_url_fetch_bytes_total")
+        .help("Total response body bytes read from watched URLs")
+        .labelNames("url")
+        .register();
+
+    public static final Counter URL_BODY_SPILLS = Counter.build()
+        .name("scout_url_body_spills_total")
+        .help("Total response bodies spilled to a memory-mapped temporary file")
+        .labelNames("url")
+        .register();
+
+    public static final Counter URL_HEDGES = Counter.build()
+        .name("scout_url_hedges_total")
+        .help("Total hedge requests sent because the first request was slower than the hedge delay")
+        .labelNames("url")
+        .register();
+
+    public static final Counter URL_HEDGE_WINS = Counter.build()
+        .name("scout_url_hedge_wins_total")
+        .help("Total hedged fetches by which attempt answered first")
+        .labelNames("url", "attempt")
+        .register();
+
     public static final Counter WEBHOOKS_SENT = Counter.build()
         .name("scout_webhooks_sent_total")
         .help("Total webhook messages sent")
         .labelNames("status")
         .register();
 
+    public static final Gauge WEBHOOK_QUEUE_DEPTH = Gauge.build()
+        .name("scout_webhook_queue_depth")
+        .help("Webhook messages queued or being delivered")
+        .register();
+
+    public static final Histogram WEBHOOK_QUEUE_WAIT = Histogram.build()
+        .name("scout_webhook_queue_wait_seconds")
+        .help("Time webhook messages spent queued before their first delivery attempt")
+        .buckets(0.01, 0.05, 0.1, 0.5, 1, 5, 30, 120)
+        .register();
+
+    public static final Counter WEBHOOK_DROPS = Counter.build()
+        .name("scout_webhook_drops_total")
+        .help("Total webhook messages dropped without being delivered")
+        .labelNames("reason")
+        .register();
+
+    public static final Counter WEBHOOK_PAYLOADS_PACKED = Counter.build()
+        .name("scout_webhook_payloads_packed_total")
+        .help("Webhook messages added by splitting oversized payloads or saved by coalescing small ones")
+        .labelNames("action")
+        .register();
+
+    public static final Counter WEBHOOK_RATE_LIMITED = Counter.build()
+        .name("scout_webhook_rate_limited_total")
+        .help("Total webhook requests rejected with HTTP 429, by rate-limit scope")
+        .labelNames("scope")
+        .register();
+
+    public static final Counter WEBHOOK_FANOUT_DELIVERIES = Counter.build()
+        .name("scout_webhook_fanout_deliveries_total")
+        .help("Total fan-out deliveries to subscriber webhooks by outcome")
+        .labelNames("outcome")
+        .register();
+
+    public static final Histogram WEBHOOK_FANOUT_LATENCY = Histogram.build()
+        .name("scout_webhook_fanout_latency_seconds")
+        .help("Duration of each fan-out request to a subscriber webhook by outcome")
+        .labelNames("outcome")
+        .buckets(0.05, 0.1, 0.25, 0.5, 1, 2, 5, 10)
+        .register();
+
+    public static final Histogram WEBHOOK_FANOUT_TIME_TO_DELIVERY = Histogram.build()
+        .name("scout_webhook_fanout_time_to_delivery_seconds")
+        .help("Time from the start of a fan-out until each subscriber had been delivered to")
+        .buckets(0.1, 0.5, 1, 2, 5, 10, 30, 60, 120)
+        .register();
+
+    public static final Histogram WEBHOOK_FANOUT_DURATION = Histogram.build()
+        .name("scout_webhook_fanout_duration_seconds")
+        .help("Time taken to deliver an event to every subscriber")
+        .buckets(0.5, 1, 5, 10, 30, 60, 120, 300)
+        .register();
+
+    public static final Gauge SUBSCRIBERS = Gauge.build()
+        .name("scout_subscribers")
+        .help("Number of webhooks in the subscriber registry")
+        .register();
+
+    public static final Counter SUBSCRIBERS_PRUNED = Counter.build()
+        .name("scout_subscribers_pruned_total")
+        .help("Total subscriber webhooks removed because Discord reported them as deleted")
+        .register();
+
     public static final Counter DATA_CHANGES_DETECTED = Counter.build()
         .name("scout_data_changes_total")
         .help("Total data changes detected by handlers")
@@ -42,11 +132,103 @@ public final class ScoutMetrics {
         .help("Number of active watchers")
         .register();
 
+    public static final Counter WATCHER_TICKS_SKIPPED = Counter.build()
+        .name("scout_watcher_ticks_skipped_total")
+        .help("Total poll ticks coalesced because the previous fetch for the watcher was still running")
+        .labelNames("url")
+        .register();
+
+    public static final Gauge WATCHER_POLL_INTERVAL = Gauge.build()
+        .name("scout_watcher_poll_interval_seconds")
+        .help("Current poll interval of each watcher")
+        .labelNames("url")
+        .register();
+
+    public static final Gauge WATCHER_TIME_TO_FIRST_POLL = Gauge.build()
+        .name("scout_watcher_time_to_first_poll_seconds")
+        .help("Time from creating each watcher to its first completed poll")
+        .labelNames("url")
+        .register();
+
+    public static final Gauge STARTUP_DURATION = Gauge.build()
+        .name("scout_startup_duration_seconds")
+        .help("Time from starting the watchers until all of them were ready or the startup deadline passed")
+        .register();
+
+    public static final Gauge CIRCUIT_BREAKER_STATE = Gauge.build()
+        .name("scout_circuit_breaker_state")
+        .help("Circuit breaker state of each watched URL (0 = closed, 1 = open, 2 = half-open)")
+        .labelNames("url")
+        .register();
+
+    public static final Counter HTTP_CONNECTIONS_ACQUIRED = Counter.build()
+        .name("scout_http_connections_acquired_total")
+        .help("Total HTTP connections acquired by fetch engine calls, by whether a pooled connection was reused")
+        .labelNames("host", "reused")
+        .register();
+
+    public static final Gauge HTTP_POOL_CONNECTIONS = Gauge.build()
+        .name("scout_http_pool_connections")
+        .help("Connections held by the shared fetch engine pool")
+        .labelNames("state")
+        .register();
+
+    public static final Gauge HTTP_DISPATCHER_CALLS = Gauge.build()
+        .name("scout_http_dispatcher_calls")
+        .help("Calls running or queued in the shared fetch engine dispatcher")
+        .labelNames("state")
+        .register();
+
+    public static final Histogram HTTP_RATE_LIMIT_WAIT = Histogram.build()
+        .name("scout_http_rate_limit_wait_seconds")
+        .help("Time requests spent waiting for a per-host rate-limit token")
+        .labelNames("host")
+        .buckets(0.01, 0.05, 0.1, 0.5, 1, 5, 30)
+        .register();
+
+    public static final Gauge HTTP_RATE_LIMIT_REMAINING = Gauge.build()
+        .name("scout_http_rate_limit_remaining")
+        .help("Requests remaining in the upstream rate-limit window, as last reported by each host")
+        .labelNames("host")
+        .register();
+
+    public static final Histogram SCHEDULER_LAG = Histogram.build()
+        .name("scout_scheduler_lag_seconds")
+        .help("Delay between a scheduled task's intended fire time and when it started running")
+        .buckets(0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1)
+        .register();
+
+    public static final Gauge SCHEDULER_PENDING_TASKS = Gauge.build()
+        .name("scout_scheduler_pending_tasks")
+        .help("Tasks waiting in the scheduler timing wheel")
+        .register();
+
     private static HTTPServer server;
 
     private ScoutMetrics() {
     }
 
+    /**
+     * Removes every series labelled with a URL, once no watcher polls it any more.
+     */
+    public static void removeUrl(String url) {
+        for (String status : List.of("success", "not_modified", "failure", "too_large", "error", "circuit_open")) {
+            URL_FETCHES.remove(url, status);
+        }
+        for (String attempt : List.of("primary", "hedge")) {
+            URL_HEDGE_WINS.remove(url, attempt);
+        }
+
+        URL_FETCH_DURATION.remove(url);
+        URL_FETCH_BYTES.remove(url);
+        URL_BODY_SPILLS.remove(url);
+        URL_HEDGES.remove(url);
+        WATCHER_TICKS_SKIPPED.remove(url);
+        WATCHER_POLL_INTERVAL.remove(url);
+        WATCHER_TIME_TO_FIRST_POLL.remove(url);
+        CIRCUIT_BREAKER_STATE.remove(url);
+    }
+
     public static void startMetricsServer() {
         int port = Integer.getInteger("metrics.port", DEFAULT_PORT);
 
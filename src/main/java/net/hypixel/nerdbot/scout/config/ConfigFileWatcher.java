@@ -0,0 +1,109 @@
+package net.hypixel.nerdbot.scout.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls back whenever a config file is written.
+ * <p>
+ * The file's directory is watched rather than the file itself, so editors that save by replacing the file are picked
+ * up as well. Editors tend to write a file in several steps, so events are collected until the directory has been
+ * quiet for a moment and then reported as a single change.
+ */
+@Slf4j
+public final class ConfigFileWatcher implements AutoCloseable {
+
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Path file;
+    private final WatchService watchService;
+    private final Runnable onChange;
+    private final Thread thread;
+
+    private ConfigFileWatcher(Path file, WatchService watchService, Runnable onChange) {
+        this.file = file;
+        this.watchService = watchService;
+        this.onChange = onChange;
+        this.thread = Thread.ofPlatform().name("ConfigFileWatcher").daemon().unstarted(this::run);
+    }
+
+    /**
+     * Starts watching the file.
+     *
+     * @param onChange called on the watcher's thread after the file has changed
+     */
+    public static ConfigFileWatcher start(Path file, Runnable onChange) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+
+        try {
+            absolute.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException exception) {
+            watchService.close();
+            throw exception;
+        }
+
+        ConfigFileWatcher watcher = new ConfigFileWatcher(absolute, watchService, onChange);
+        watcher.thread.start();
+        log.info("Watching {} for changes", absolute);
+        return watcher;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!concernsFile(watchService.take())) {
+                    continue;
+                }
+
+                // Swallow the rest of this save before reloading
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(key);
+                }
+
+                try {
+                    onChange.run();
+                } catch (RuntimeException exception) {
+                    log.error("Failed to apply changes to {}", file, exception);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException exception) {
+            // Closed
+        }
+    }
+
+    private boolean concernsFile(WatchKey key) {
+        boolean concerns = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                || (event.context() instanceof Path changed && changed.equals(file.getFileName()))) {
+                concerns = true;
+            }
+        }
+
+        key.reset();
+        return concerns;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException exception) {
+            log.warn("Failed to close watch service for {}", file, exception);
+        }
+    }
+}
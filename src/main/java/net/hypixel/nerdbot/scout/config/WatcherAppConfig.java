@@ -3,7 +3,10 @@ package net.hypixel.nerdbot.scout.config;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import net.hypixel.nerdbot.scout.fetch.FetchConfig;
 import net.hypixel.nerdbot.scout.handler.status.StatusPageConfig;
+import net.hypixel.nerdbot.scout.schedule.SchedulerConfig;
+import net.hypixel.nerdbot.scout.webhook.WebhookConfig;
 
 import java.util.List;
 
@@ -14,4 +17,29 @@ public class WatcherAppConfig {
 
     private List<WatcherConfig> watchers;
     private StatusPageConfig statusPageConfig = new StatusPageConfig();
+    private FetchConfig fetchConfig = new FetchConfig();
+    private SchedulerConfig schedulerConfig = new SchedulerConfig();
+    private WebhookConfig webhookConfig = new WebhookConfig();
+
+    /**
+     * Directory watcher baselines are saved to, so restarts resume from the last seen content. Leave empty to fetch
+     * a fresh baseline on every start.
+     */
+    private String stateDirectory = "state";
+
+    /**
+     * JSON file listing the community webhooks that subscribed to Scout's feeds. Leave empty to disable subscribers.
+     */
+    private String subscribersFile = "subscribers.json";
+
+    /**
+     * How long watchers wait at startup for their initial content before they start polling without it.
+     */
+    private long startupDeadlineSeconds = 30;
+
+    /**
+     * Reload the watchers whenever the config file changes. Only the {@code watchers} section is applied without a
+     * restart.
+     */
+    private boolean watchConfig = true;
 }
@@ -3,7 +3,13 @@ package net.hypixel.nerdbot.scout.config;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import net.hypixel.nerdbot.scout.fetch.BodyReader;
+import net.hypixel.nerdbot.scout.fetch.CircuitBreakerConfig;
+import net.hypixel.nerdbot.scout.fetch.HedgingConfig;
+import net.hypixel.nerdbot.scout.route.DestinationConfig;
+import net.hypixel.nerdbot.scout.schedule.AdaptiveIntervalConfig;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -19,6 +25,10 @@ public class WatcherConfig {
     private long interval = 1;
     private TimeUnit timeUnit = TimeUnit.MINUTES;
     private String handlerClass;
+
+    /**
+     * Webhook that receives every event of this watcher. Shorthand for a single entry in {@code destinations}.
+     */
     private String webhookUrl;
 
     /**
@@ -26,4 +36,55 @@ public class WatcherConfig {
      * Format in webhook content as {@code <@&roleId>}.
      */
     private String alertRoleId;
+
+    /**
+     * Further webhooks this watcher's events are delivered to, each with its own role and event filter.
+     */
+    private List<DestinationConfig> destinations;
+
+    /**
+     * Maximum response body size in bytes. Responses larger than this are aborted.
+     */
+    private long maxBodyBytes = BodyReader.DEFAULT_MAX_BYTES;
+
+    /**
+     * Response bodies larger than this many bytes are spilled to a memory-mapped temporary file
+     * instead of being buffered on the heap.
+     */
+    private long spillThresholdBytes = BodyReader.DEFAULT_SPILL_THRESHOLD_BYTES;
+
+    /**
+     * Optional change-driven polling. When enabled, {@code interval} only applies to the first poll.
+     */
+    private AdaptiveIntervalConfig adaptiveInterval = new AdaptiveIntervalConfig();
+
+    /**
+     * Backoff applied when this watcher's URL keeps failing.
+     */
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+
+    /**
+     * Optional request hedging for latency-critical watchers.
+     */
+    private HedgingConfig hedging = new HedgingConfig();
+
+    /**
+     * Key fields used to match array elements when diffing JSON payloads, keyed by the JSON pointer of the array
+     * (e.g. {@code "/sales": ["item_id", "start"]}). Arrays not listed here are compared by index. List-style handlers
+     * such as the fire sale handler read their composite key from here as well.
+     */
+    private Map<String, List<String>> arrayKeys;
+
+    /**
+     * Identifies this watcher across config reloads and restarts. Several watchers may share a URL, so the key also
+     * includes the watcher and handler classes; anything else about a watcher can change without it being treated as
+     * a different watcher.
+     */
+    public String getKey() {
+        return key(className, url, handlerClass);
+    }
+
+    public static String key(String className, String url, String handlerClass) {
+        return className + "|" + url + "|" + handlerClass;
+    }
 }
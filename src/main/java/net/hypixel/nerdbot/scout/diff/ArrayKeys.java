@@ -0,0 +1,81 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Key fields used to match array elements by identity rather than by index, keyed by the JSON pointer of the array.
+ * <p>
+ * A pointer segment consisting of a single asterisk matches any one segment, which allows keying an array nested
+ * inside the elements of another array (for example the {@code tags} of every entry in {@code /products}).
+ */
+public final class ArrayKeys {
+
+    public static final ArrayKeys NONE = new ArrayKeys(Map.of());
+
+    private static final String WILDCARD = "*";
+
+    private final Map<String, List<String>> exact = new HashMap<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    public ArrayKeys(Map<String, List<String>> keysByPointer) {
+        keysByPointer.forEach((pointer, fields) -> {
+            if (fields == null || fields.isEmpty()) {
+                return;
+            }
+
+            String[] segments = pointer.split("/", -1);
+            if (List.of(segments).contains(WILDCARD)) {
+                patterns.add(new Pattern(segments, List.copyOf(fields)));
+            } else {
+                exact.put(pointer, List.copyOf(fields));
+            }
+        });
+    }
+
+    public static ArrayKeys of(Map<String, List<String>> keysByPointer) {
+        return keysByPointer == null || keysByPointer.isEmpty() ? NONE : new ArrayKeys(keysByPointer);
+    }
+
+    public boolean isEmpty() {
+        return exact.isEmpty() && patterns.isEmpty();
+    }
+
+    /**
+     * Returns the key fields for the array at the given pointer, or {@code null} if it should be compared by index.
+     */
+    public List<String> fieldsFor(String pointer) {
+        List<String> fields = exact.get(pointer);
+        if (fields != null || patterns.isEmpty()) {
+            return fields;
+        }
+
+        String[] segments = pointer.split("/", -1);
+        for (Pattern pattern : patterns) {
+            if (pattern.matches(segments)) {
+                return pattern.fields();
+            }
+        }
+
+        return null;
+    }
+
+    private record Pattern(String[] segments, List<String> fields) {
+
+        private boolean matches(String[] pointer) {
+            if (pointer.length != segments.length) {
+                return false;
+            }
+
+            for (int i = 0; i < segments.length; i++) {
+                if (!segments[i].equals(WILDCARD) && !segments[i].equals(pointer[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import com.google.gson.JsonElement;
+import net.hypixel.nerdbot.marmalade.Tuple;
+
+/**
+ * A single difference between two JSON documents.
+ *
+ * @param path     JSON pointer (RFC 6901) of the changed value
+ * @param oldValue the old value, or {@code null} if it was added
+ * @param newValue the new value, or {@code null} if it was removed
+ */
+public record JsonChange(String path, JsonElement oldValue, JsonElement newValue) {
+
+    public boolean isAdded() {
+        return oldValue == null;
+    }
+
+    public boolean isRemoved() {
+        return newValue == null;
+    }
+
+    public Tuple<String, Object, Object> toTuple() {
+        return new Tuple<>(path, oldValue, newValue);
+    }
+}
@@ -0,0 +1,450 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Structural diff of two JSON documents that walks both token streams at once.
+ * <p>
+ * As long as both documents have the same shape, nothing is materialised: objects and arrays are entered in lockstep,
+ * scalars are compared straight off the token streams, and only values that differ are turned into
+ * {@link JsonElement}s and given a JSON pointer. When object members appear in a different order,
+ * the misaligned members are buffered per object until their counterpart shows up. Arrays listed in {@link ArrayKeys}
+ * are read whole and their elements matched by key fields, so inserting or reordering entries does not report every
+ * following index as changed.
+ * <p>
+ * Changes are produced lazily, in document order, as the iterator is advanced. The traversal uses an explicit stack,
+ * so deeply nested documents cannot overflow the call stack.
+ */
+public final class JsonDiff implements Iterator<JsonChange>, Closeable {
+
+    private final JsonReader oldReader;
+    private final JsonReader newReader;
+    private final ArrayKeys arrayKeys;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final Deque<JsonChange> ready = new ArrayDeque<>();
+    private boolean started;
+    private boolean finished;
+
+    public JsonDiff(Reader oldJson, Reader newJson, ArrayKeys arrayKeys) {
+        this.oldReader = new JsonReader(oldJson);
+        this.newReader = new JsonReader(newJson);
+        this.arrayKeys = arrayKeys != null ? arrayKeys : ArrayKeys.NONE;
+    }
+
+    /**
+     * Diffs two documents held in memory and collects every change.
+     *
+     * @throws JsonParseException if either document is not valid JSON
+     */
+    public static List<JsonChange> diff(String oldJson, String newJson, ArrayKeys arrayKeys) {
+        List<JsonChange> changes = new ArrayList<>();
+        try (JsonDiff diff = new JsonDiff(new StringReader(oldJson), new StringReader(newJson), arrayKeys)) {
+            diff.forEachRemaining(changes::add);
+        }
+        return changes;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (ready.isEmpty() && !finished) {
+                step();
+            }
+        } catch (MalformedJsonException | EOFException exception) {
+            // Thrown by JsonReader for syntax errors and documents that end early
+            throw new JsonParseException(exception.getMessage(), exception);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } catch (IllegalStateException exception) {
+            // Thrown by JsonReader when the documents are not well-formed
+            throw new JsonParseException(exception.getMessage(), exception);
+        }
+
+        return !ready.isEmpty();
+    }
+
+    @Override
+    public JsonChange next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return ready.poll();
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        try {
+            oldReader.close();
+            newReader.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void step() throws IOException {
+        if (!started) {
+            started = true;
+            compareValues(null, null, -1);
+            return;
+        }
+
+        Frame frame = stack.peek();
+        if (frame == null) {
+            close();
+            return;
+        }
+
+        if (frame.object) {
+            stepObject(frame);
+        } else {
+            stepArray(frame);
+        }
+    }
+
+    /**
+     * Compares the values both readers are positioned at, which live under {@code parent} at member {@code name}
+     * or, if that is {@code null}, at {@code index}. Containers of the same type are entered in lockstep and scalars
+     * are compared straight from the token stream; only values that differ in type are read and compared in memory.
+     * Pointers are only built for values that are reported or needed for an {@link ArrayKeys} lookup.
+     */
+    private void compareValues(Frame parent, String name, int index) throws IOException {
+        JsonToken oldToken = oldReader.peek();
+        JsonToken newToken = newReader.peek();
+
+        if (oldToken == JsonToken.BEGIN_OBJECT && newToken == JsonToken.BEGIN_OBJECT) {
+            oldReader.beginObject();
+            newReader.beginObject();
+            stack.push(new Frame(parent, name, index, true));
+            return;
+        }
+
+        if (oldToken == JsonToken.BEGIN_ARRAY && newToken == JsonToken.BEGIN_ARRAY
+            && (arrayKeys.isEmpty() || arrayKeys.fieldsFor(pathOf(parent, name, index)) == null)) {
+            oldReader.beginArray();
+            newReader.beginArray();
+            stack.push(new Frame(parent, name, index, false));
+            return;
+        }
+
+        if (oldToken == newToken) {
+            switch (oldToken) {
+                case STRING -> {
+                    String oldValue = oldReader.nextString();
+                    String newValue = newReader.nextString();
+                    if (!oldValue.equals(newValue)) {
+                        ready.add(new JsonChange(pathOf(parent, name, index), new JsonPrimitive(oldValue), new JsonPrimitive(newValue)));
+                    }
+                    return;
+                }
+                case NUMBER -> {
+                    String oldValue = oldReader.nextString();
+                    String newValue = newReader.nextString();
+                    if (!oldValue.equals(newValue)) {
+                        // Same number, different spelling (1 vs 1.0)
+                        BigDecimal oldNumber = new BigDecimal(oldValue);
+                        BigDecimal newNumber = new BigDecimal(newValue);
+                        if (oldNumber.compareTo(newNumber) != 0) {
+                            ready.add(new JsonChange(pathOf(parent, name, index), new JsonPrimitive(oldNumber), new JsonPrimitive(newNumber)));
+                        }
+                    }
+                    return;
+                }
+                case BOOLEAN -> {
+                    boolean oldValue = oldReader.nextBoolean();
+                    boolean newValue = newReader.nextBoolean();
+                    if (oldValue != newValue) {
+                        ready.add(new JsonChange(pathOf(parent, name, index), new JsonPrimitive(oldValue), new JsonPrimitive(newValue)));
+                    }
+                    return;
+                }
+                case NULL -> {
+                    oldReader.nextNull();
+                    newReader.nextNull();
+                    return;
+                }
+                default -> {
+                }
+            }
+        }
+
+        compareElements(pathOf(parent, name, index), read(oldReader), read(newReader));
+    }
+
+    private void stepObject(Frame frame) throws IOException {
+        boolean oldHasNext = oldReader.hasNext();
+        boolean newHasNext = newReader.hasNext();
+
+        if (oldHasNext && newHasNext) {
+            String oldName = oldReader.nextName();
+            String newName = newReader.nextName();
+
+            if (oldName.equals(newName)) {
+                compareValues(frame, oldName, -1);
+                return;
+            }
+
+            matchOrBuffer(frame, oldName, read(oldReader), true);
+            matchOrBuffer(frame, newName, read(newReader), false);
+            return;
+        }
+
+        if (oldHasNext) {
+            matchOrBuffer(frame, oldReader.nextName(), read(oldReader), true);
+            return;
+        }
+
+        if (newHasNext) {
+            matchOrBuffer(frame, newReader.nextName(), read(newReader), false);
+            return;
+        }
+
+        oldReader.endObject();
+        newReader.endObject();
+        stack.pop();
+
+        // Whatever is still buffered never found a counterpart
+        if (frame.pendingOld != null) {
+            frame.pendingOld.forEach((name, value) -> ready.add(new JsonChange(JsonPointer.child(frame.path(), name), value, null)));
+        }
+        if (frame.pendingNew != null) {
+            frame.pendingNew.forEach((name, value) -> ready.add(new JsonChange(JsonPointer.child(frame.path(), name), null, value)));
+        }
+    }
+
+    private void matchOrBuffer(Frame frame, String name, JsonElement value, boolean fromOld) {
+        Map<String, JsonElement> counterparts = fromOld ? frame.pendingNew : frame.pendingOld;
+        JsonElement counterpart = counterparts != null ? counterparts.remove(name) : null;
+
+        if (counterpart != null) {
+            String path = JsonPointer.child(frame.path(), name);
+            if (fromOld) {
+                compareElements(path, value, counterpart);
+            } else {
+                compareElements(path, counterpart, value);
+            }
+            return;
+        }
+
+        if (fromOld) {
+            if (frame.pendingOld == null) {
+                frame.pendingOld = new LinkedHashMap<>();
+            }
+            frame.pendingOld.put(name, value);
+        } else {
+            if (frame.pendingNew == null) {
+                frame.pendingNew = new LinkedHashMap<>();
+            }
+            frame.pendingNew.put(name, value);
+        }
+    }
+
+    private void stepArray(Frame frame) throws IOException {
+        boolean oldHasNext = oldReader.hasNext();
+        boolean newHasNext = newReader.hasNext();
+        int index = frame.nextIndex++;
+
+        if (oldHasNext && newHasNext) {
+            compareValues(frame, null, index);
+        } else if (oldHasNext) {
+            ready.add(new JsonChange(JsonPointer.child(frame.path(), index), read(oldReader), null));
+        } else if (newHasNext) {
+            ready.add(new JsonChange(JsonPointer.child(frame.path(), index), null, read(newReader)));
+        } else {
+            oldReader.endArray();
+            newReader.endArray();
+            stack.pop();
+        }
+    }
+
+    private static String pathOf(Frame parent, String name, int index) {
+        if (parent == null) {
+            return "";
+        }
+        return name != null ? JsonPointer.child(parent.path(), name) : JsonPointer.child(parent.path(), index);
+    }
+
+    /**
+     * Diffs two materialised values, honouring {@link ArrayKeys} for any arrays inside them. Equal subtrees are
+     * skipped with a single deep comparison instead of being walked.
+     */
+    private void compareElements(String rootPath, JsonElement oldRoot, JsonElement newRoot) {
+        Deque<Pair> work = new ArrayDeque<>();
+        work.push(new Pair(rootPath, oldRoot, newRoot));
+
+        while (!work.isEmpty()) {
+            Pair pair = work.pop();
+            if (pair.oldValue == null || pair.newValue == null) {
+                ready.add(new JsonChange(pair.path, pair.oldValue, pair.newValue));
+                continue;
+            }
+
+            List<Pair> children = new ArrayList<>();
+            if (pair.oldValue.isJsonObject() && pair.newValue.isJsonObject()) {
+                JsonObject oldObject = pair.oldValue.getAsJsonObject();
+                JsonObject newObject = pair.newValue.getAsJsonObject();
+
+                for (Map.Entry<String, JsonElement> entry : oldObject.entrySet()) {
+                    JsonElement newValue = newObject.get(entry.getKey());
+                    if (!sameValue(entry.getValue(), newValue)) {
+                        children.add(new Pair(JsonPointer.child(pair.path, entry.getKey()), entry.getValue(), newValue));
+                    }
+                }
+
+                for (Map.Entry<String, JsonElement> entry : newObject.entrySet()) {
+                    if (!oldObject.has(entry.getKey())) {
+                        children.add(new Pair(JsonPointer.child(pair.path, entry.getKey()), null, entry.getValue()));
+                    }
+                }
+            } else if (pair.oldValue.isJsonArray() && pair.newValue.isJsonArray()) {
+                List<String> keyFields = arrayKeys.fieldsFor(pair.path);
+                if (keyFields != null) {
+                    KeyedListDiff.match(pair.path, pair.oldValue.getAsJsonArray(), pair.newValue.getAsJsonArray(), keyFields,
+                        change -> children.add(new Pair(change.path(), change.oldValue(), change.newValue())));
+                } else {
+                    matchByIndex(pair.path, pair.oldValue.getAsJsonArray(), pair.newValue.getAsJsonArray(), children);
+                }
+            } else if (!sameValue(pair.oldValue, pair.newValue)) {
+                ready.add(new JsonChange(pair.path, pair.oldValue, pair.newValue));
+            }
+
+            // Pushed in reverse so that changes come out in document order
+            for (int i = children.size() - 1; i >= 0; i--) {
+                work.push(children.get(i));
+            }
+        }
+    }
+
+    private static void matchByIndex(String path, JsonArray oldArray, JsonArray newArray, List<Pair> children) {
+        int size = Math.max(oldArray.size(), newArray.size());
+        for (int i = 0; i < size; i++) {
+            JsonElement oldValue = i < oldArray.size() ? oldArray.get(i) : null;
+            JsonElement newValue = i < newArray.size() ? newArray.get(i) : null;
+            if (!sameValue(oldValue, newValue)) {
+                children.add(new Pair(JsonPointer.child(path, i), oldValue, newValue));
+            }
+        }
+    }
+
+    /**
+     * Deep equality of two values. Unlike {@link JsonElement#equals}, numbers are compared by their literal text
+     * first, which avoids re-parsing every number in large, mostly unchanged subtrees.
+     */
+    static boolean sameValue(JsonElement first, JsonElement second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+
+        Deque<JsonElement> work = new ArrayDeque<>();
+        work.push(first);
+        work.push(second);
+
+        while (!work.isEmpty()) {
+            JsonElement b = work.pop();
+            JsonElement a = work.pop();
+
+            if (a.isJsonObject() && b.isJsonObject()) {
+                JsonObject objectA = a.getAsJsonObject();
+                JsonObject objectB = b.getAsJsonObject();
+                if (objectA.size() != objectB.size()) {
+                    return false;
+                }
+
+                for (Map.Entry<String, JsonElement> entry : objectA.entrySet()) {
+                    JsonElement valueB = objectB.get(entry.getKey());
+                    if (valueB == null) {
+                        return false;
+                    }
+                    work.push(entry.getValue());
+                    work.push(valueB);
+                }
+            } else if (a.isJsonArray() && b.isJsonArray()) {
+                JsonArray arrayA = a.getAsJsonArray();
+                JsonArray arrayB = b.getAsJsonArray();
+                if (arrayA.size() != arrayB.size()) {
+                    return false;
+                }
+
+                for (int i = 0; i < arrayA.size(); i++) {
+                    work.push(arrayA.get(i));
+                    work.push(arrayB.get(i));
+                }
+            } else if (a.isJsonPrimitive() && b.isJsonPrimitive()) {
+                if (!samePrimitive(a.getAsJsonPrimitive(), b.getAsJsonPrimitive())) {
+                    return false;
+                }
+            } else if (!(a.isJsonNull() && b.isJsonNull())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean samePrimitive(JsonPrimitive a, JsonPrimitive b) {
+        if (a.isNumber() && b.isNumber()) {
+            String textA = a.getAsString();
+            String textB = b.getAsString();
+            return textA.equals(textB) || new BigDecimal(textA).compareTo(new BigDecimal(textB)) == 0;
+        }
+
+        return a.equals(b);
+    }
+
+    private static JsonElement read(JsonReader reader) {
+        return JsonParser.parseReader(reader);
+    }
+
+    private static final class Frame {
+
+        private final Frame parent;
+        private final String name;
+        private final int index;
+        private final boolean object;
+        private String path;
+        private int nextIndex;
+        private Map<String, JsonElement> pendingOld;
+        private Map<String, JsonElement> pendingNew;
+
+        private Frame(Frame parent, String name, int index, boolean object) {
+            this.parent = parent;
+            this.name = name;
+            this.index = index;
+            this.object = object;
+        }
+
+        private String path() {
+            if (path == null) {
+                path = pathOf(parent, name, index);
+            }
+            return path;
+        }
+    }
+
+    private record Pair(String path, JsonElement oldValue, JsonElement newValue) {
+    }
+}
@@ -0,0 +1,73 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+/**
+ * Helpers for building and resolving JSON pointers (RFC 6901).
+ */
+final class JsonPointer {
+
+    private JsonPointer() {
+    }
+
+    static String child(String parent, String name) {
+        return parent + "/" + escape(name);
+    }
+
+    static String child(String parent, int index) {
+        return parent + "/" + index;
+    }
+
+    static String escape(String name) {
+        if (name.indexOf('~') == -1 && name.indexOf('/') == -1) {
+            return name;
+        }
+
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * Returns the value at {@code pointer} below {@code root}, or {@code null} if there is none.
+     */
+    static JsonElement resolve(JsonElement root, String pointer) {
+        if (pointer == null || pointer.isEmpty()) {
+            return root;
+        }
+
+        JsonElement current = root;
+        for (String segment : pointer.substring(1).split("/", -1)) {
+            if (current == null) {
+                return null;
+            }
+
+            String name = unescape(segment);
+            if (current.isJsonObject()) {
+                current = current.getAsJsonObject().get(name);
+            } else if (current.isJsonArray()) {
+                current = element(current.getAsJsonArray(), name);
+            } else {
+                return null;
+            }
+        }
+
+        return current;
+    }
+
+    static String unescape(String segment) {
+        if (segment.indexOf('~') == -1) {
+            return segment;
+        }
+
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+
+    private static JsonElement element(JsonArray array, String index) {
+        try {
+            int i = Integer.parseInt(index);
+            return i >= 0 && i < array.size() ? array.get(i) : null;
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+}
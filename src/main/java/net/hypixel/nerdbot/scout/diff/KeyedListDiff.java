@@ -0,0 +1,171 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Diffs a list-shaped part of a JSON document as a set keyed by one or more fields of its elements.
+ * <p>
+ * Elements are matched through a hash index of the old array, so added, removed and modified elements are found in
+ * linear time regardless of how the list was reordered. Elements that lack any key field are matched by index.
+ * <pre>{@code
+ * KeyedListDiff sales = new KeyedListDiff("/sales", List.of("item_id", "start"));
+ * KeyedListDiff.Result result = sales.diff(sales.select(oldRoot), sales.select(newRoot));
+ * }</pre>
+ */
+public final class KeyedListDiff {
+
+    private final String arrayPointer;
+    private final List<String> keyFields;
+
+    public KeyedListDiff(String arrayPointer, List<String> keyFields) {
+        if (keyFields == null || keyFields.isEmpty()) {
+            throw new IllegalArgumentException("At least one key field is required for " + arrayPointer);
+        }
+
+        this.arrayPointer = arrayPointer;
+        this.keyFields = List.copyOf(keyFields);
+    }
+
+    public String getArrayPointer() {
+        return arrayPointer;
+    }
+
+    public List<String> getKeyFields() {
+        return keyFields;
+    }
+
+    /**
+     * Returns the array at this diff's pointer, or {@code null} if the document has no array there.
+     */
+    public JsonArray select(JsonElement root) {
+        JsonElement element = JsonPointer.resolve(root, arrayPointer);
+        return element != null && element.isJsonArray() ? element.getAsJsonArray() : null;
+    }
+
+    /**
+     * Diffs two arrays. A missing array is treated as empty.
+     */
+    public Result diff(JsonArray oldArray, JsonArray newArray) {
+        List<JsonChange> added = new ArrayList<>();
+        List<JsonChange> removed = new ArrayList<>();
+        List<JsonChange> modified = new ArrayList<>();
+
+        match(arrayPointer, oldArray != null ? oldArray : new JsonArray(), newArray != null ? newArray : new JsonArray(), keyFields, change -> {
+            if (change.isAdded()) {
+                added.add(change);
+            } else if (change.isRemoved()) {
+                removed.add(change);
+            } else {
+                modified.add(change);
+            }
+        });
+
+        return new Result(added, removed, modified);
+    }
+
+    /**
+     * Pairs up elements with equal key fields and reports every difference to {@code sink}: added and modified
+     * elements in the order of the new array under their new index, then removed elements under their old index.
+     * Elements sharing a key are paired in the order they appear in.
+     */
+    static void match(String path, JsonArray oldArray, JsonArray newArray, List<String> keyFields, Consumer<JsonChange> sink) {
+        Map<Object, Integer> oldIndexes = new HashMap<>(Math.max(16, oldArray.size() * 4 / 3 + 1));
+        // Later old elements with an already indexed key, only allocated when a key repeats
+        Map<Object, Deque<Integer>> duplicateIndexes = null;
+        for (int i = 0; i < oldArray.size(); i++) {
+            Object key = keyOf(oldArray.get(i), keyFields, i);
+            if (oldIndexes.putIfAbsent(key, i) != null) {
+                if (duplicateIndexes == null) {
+                    duplicateIndexes = new HashMap<>();
+                }
+                duplicateIndexes.computeIfAbsent(key, unused -> new ArrayDeque<>()).add(i);
+            }
+        }
+
+        boolean[] matched = new boolean[oldArray.size()];
+        for (int i = 0; i < newArray.size(); i++) {
+            JsonElement newValue = newArray.get(i);
+            Object key = keyOf(newValue, keyFields, i);
+            Integer oldIndex = oldIndexes.remove(key);
+            if (oldIndex != null && duplicateIndexes != null) {
+                Deque<Integer> next = duplicateIndexes.get(key);
+                if (next != null && !next.isEmpty()) {
+                    oldIndexes.put(key, next.poll());
+                }
+            }
+
+            if (oldIndex != null) {
+                matched[oldIndex] = true;
+                if (!JsonDiff.sameValue(oldArray.get(oldIndex), newValue)) {
+                    sink.accept(new JsonChange(JsonPointer.child(path, i), oldArray.get(oldIndex), newValue));
+                }
+            } else {
+                sink.accept(new JsonChange(JsonPointer.child(path, i), null, newValue));
+            }
+        }
+
+        for (int i = 0; i < oldArray.size(); i++) {
+            if (!matched[i]) {
+                sink.accept(new JsonChange(JsonPointer.child(path, i), oldArray.get(i), null));
+            }
+        }
+    }
+
+    private static Object keyOf(JsonElement element, List<String> keyFields, int index) {
+        if (!element.isJsonObject()) {
+            return index;
+        }
+
+        JsonObject object = element.getAsJsonObject();
+        if (keyFields.size() == 1) {
+            JsonElement value = object.get(keyFields.get(0));
+            return value != null ? value : index;
+        }
+
+        List<JsonElement> key = new ArrayList<>(keyFields.size());
+        for (String field : keyFields) {
+            JsonElement value = object.get(field);
+            if (value == null) {
+                return index;
+            }
+            key.add(value);
+        }
+
+        return key;
+    }
+
+    /**
+     * The differences between two arrays. Paths point into the new array for added and modified elements and into
+     * the old array for removed ones.
+     */
+    public record Result(List<JsonChange> added, List<JsonChange> removed, List<JsonChange> modified) {
+
+        public Result {
+            added = List.copyOf(added);
+            removed = List.copyOf(removed);
+            modified = List.copyOf(modified);
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+        }
+
+        public List<JsonElement> addedElements() {
+            return added.stream().map(JsonChange::newValue).toList();
+        }
+
+        public List<JsonElement> removedElements() {
+            return removed.stream().map(JsonChange::oldValue).toList();
+        }
+    }
+}
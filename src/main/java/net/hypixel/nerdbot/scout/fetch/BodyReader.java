@@ -0,0 +1,132 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a response body into a {@link FetchedBody}, hashing it on the way in.
+ * <p>
+ * Reading is aborted as soon as the body exceeds {@code maxBytes} (or its declared length already does), so one
+ * runaway upstream cannot blow up the heap. Bodies larger than {@code spillThresholdBytes} are written to a temporary
+ * file and memory-mapped instead of being buffered on the heap.
+ * <p>
+ * Fetch outcomes and byte counts are left to the caller, which knows whether the body it read is the one that counts.
+ */
+@Slf4j
+@Getter
+public final class BodyReader {
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    public static final long DEFAULT_SPILL_THRESHOLD_BYTES = 1024L * 1024;
+    public static final BodyReader DEFAULT = new BodyReader(DEFAULT_MAX_BYTES, DEFAULT_SPILL_THRESHOLD_BYTES);
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final long maxBytes;
+    private final long spillThresholdBytes;
+
+    public BodyReader(long maxBytes, long spillThresholdBytes) {
+        if (maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxBytes cannot exceed " + Integer.MAX_VALUE);
+        }
+
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+        this.spillThresholdBytes = spillThresholdBytes > 0 ? Math.min(spillThresholdBytes, this.maxBytes) : this.maxBytes;
+    }
+
+    public FetchedBody read(String url, ResponseBody body) throws IOException {
+        MediaType contentType = body.contentType();
+        Charset charset = contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+
+        try (InputStream input = body.byteStream()) {
+            return read(url, input, body.contentLength(), charset);
+        }
+    }
+
+    public FetchedBody read(String url, InputStream input, long contentLength, Charset charset) throws IOException {
+        if (contentLength > maxBytes) {
+            throw new BodyTooLargeException(url, maxBytes);
+        }
+
+        ContentDigest digest = new ContentDigest();
+        int initialCapacity = (int) Math.min(contentLength > 0 ? contentLength : CHUNK_SIZE, spillThresholdBytes);
+        ByteArrayOutputStream heapBuffer = new ByteArrayOutputStream(initialCapacity);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        long total = 0;
+        Path spillFile = null;
+        FileChannel spillChannel = null;
+
+        try {
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                total += read;
+
+                if (total > maxBytes) {
+                    throw new BodyTooLargeException(url, maxBytes);
+                }
+
+                digest.update(chunk, 0, read);
+
+                if (spillChannel == null && total > spillThresholdBytes) {
+                    spillFile = Files.createTempFile("scout-body-", ".tmp");
+                    spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    writeFully(spillChannel, ByteBuffer.wrap(heapBuffer.toByteArray()));
+                    heapBuffer = null;
+                    ScoutMetrics.URL_BODY_SPILLS.labels(url).inc();
+                    log.debug("Response body from {} exceeded {} bytes, spilling to {}", url, spillThresholdBytes, spillFile);
+                }
+
+                if (spillChannel != null) {
+                    writeFully(spillChannel, ByteBuffer.wrap(chunk, 0, read));
+                } else {
+                    heapBuffer.write(chunk, 0, read);
+                }
+            }
+
+            if (spillChannel == null) {
+                return new FetchedBody(ByteBuffer.wrap(heapBuffer.toByteArray()), charset, digest.getValue(), false);
+            }
+
+            // The mapping stays valid after the channel is closed and the file is unlinked
+            ByteBuffer mapped = spillChannel.map(FileChannel.MapMode.READ_ONLY, 0, total);
+            return new FetchedBody(mapped, charset, digest.getValue(), true);
+        } finally {
+            if (spillChannel != null) {
+                spillChannel.close();
+            }
+
+            if (spillFile != null) {
+                deleteSpillFile(spillFile);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void deleteSpillFile(Path spillFile) {
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (IOException exception) {
+            // Some platforms refuse to delete a mapped file
+            spillFile.toFile().deleteOnExit();
+        }
+    }
+}
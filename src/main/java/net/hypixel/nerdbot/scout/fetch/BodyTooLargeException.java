@@ -0,0 +1,14 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link BodyReader} when a response body exceeds the configured maximum size.
+ * The response is abandoned as soon as the limit is crossed.
+ */
+public class BodyTooLargeException extends IOException {
+
+    public BodyTooLargeException(String url, long limitBytes) {
+        super("Response body from " + url + " exceeded limit of " + limitBytes + " bytes");
+    }
+}
@@ -0,0 +1,145 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-URL circuit breaker with exponential backoff.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the circuit opens and requests are refused without touching the
+ * network. Once the backoff has elapsed a single probe is let through ({@code HALF_OPEN}): success closes the circuit,
+ * failure re-opens it for twice as long. A {@code Retry-After} from upstream is honoured whenever it asks for a longer
+ * pause than the backoff would.
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    private final String url;
+    private final int failureThreshold;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double jitterRatio;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int consecutiveTrips;
+    private long openUntilNanos;
+
+    public CircuitBreaker(String url, CircuitBreakerConfig config) {
+        this.url = url;
+        this.failureThreshold = Math.max(1, config.getFailureThreshold());
+        this.initialBackoffNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getInitialBackoffSeconds()));
+        this.maxBackoffNanos = Math.max(initialBackoffNanos, TimeUnit.SECONDS.toNanos(config.getMaxBackoffSeconds()));
+        this.jitterRatio = Math.max(0, config.getJitterRatio());
+        ScoutMetrics.CIRCUIT_BREAKER_STATE.labels(url).set(state.ordinal());
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a request may be sent now. Moves an open circuit whose backoff has elapsed to {@code HALF_OPEN}
+     * and lets exactly that one probe through.
+     */
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (System.nanoTime() - openUntilNanos < 0) {
+                    yield false;
+                }
+
+                transition(State.HALF_OPEN);
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        consecutiveTrips = 0;
+
+        if (state != State.CLOSED) {
+            log.info("Circuit for {} closed, upstream has recovered", url);
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a failed request.
+     *
+     * @param retryAfterNanos pause requested by upstream via {@code Retry-After}, or {@code 0} if none
+     */
+    public synchronized void recordFailure(long retryAfterNanos) {
+        consecutiveFailures++;
+
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold || retryAfterNanos > 0) {
+            open(retryAfterNanos);
+        }
+    }
+
+    private void open(long retryAfterNanos) {
+        long backoffNanos = initialBackoffNanos;
+        for (int trip = 0; trip < consecutiveTrips && backoffNanos < maxBackoffNanos; trip++) {
+            backoffNanos *= 2;
+        }
+        backoffNanos = Math.min(maxBackoffNanos, backoffNanos);
+        long jitterNanos = (long) (backoffNanos * jitterRatio * ThreadLocalRandom.current().nextDouble());
+        long pauseNanos = Math.max(backoffNanos + jitterNanos, retryAfterNanos);
+
+        consecutiveTrips++;
+        openUntilNanos = System.nanoTime() + pauseNanos;
+        transition(State.OPEN);
+
+        log.warn("Circuit for {} opened after {} consecutive failure(s), next attempt in {}s",
+            url, consecutiveFailures, TimeUnit.NANOSECONDS.toSeconds(pauseNanos));
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either as delay-seconds or as an HTTP date.
+     *
+     * @return the requested pause in nanoseconds, or {@code 0} if the header is absent or malformed
+     */
+    public static long parseRetryAfterNanos(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException ignored) {
+            // Not delay-seconds, try an HTTP date
+        }
+
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(Instant.now(), date.toInstant()).toNanos());
+        } catch (DateTimeParseException | ArithmeticException exception) {
+            log.debug("Ignoring malformed Retry-After value '{}'", retryAfter);
+            return 0;
+        }
+    }
+
+    private void transition(State next) {
+        state = next;
+        ScoutMetrics.CIRCUIT_BREAKER_STATE.labels(url).set(next.ordinal());
+    }
+
+    /**
+     * Breaker states. The ordinal is exported as the value of {@code scout_circuit_breaker_state}.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
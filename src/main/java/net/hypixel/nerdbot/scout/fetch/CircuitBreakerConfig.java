@@ -0,0 +1,32 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class CircuitBreakerConfig {
+
+    /**
+     * Consecutive failed fetches after which the circuit opens and polling pauses.
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * How long the circuit stays open the first time it trips. Doubles on every consecutive trip.
+     */
+    private long initialBackoffSeconds = 30;
+
+    /**
+     * Upper bound for the open period, before jitter and before any longer {@code Retry-After}.
+     */
+    private long maxBackoffSeconds = 1_800;
+
+    /**
+     * Maximum random extension of each open period, as a fraction of it, so watchers that tripped together do not
+     * all probe again at the same moment.
+     */
+    private double jitterRatio = 0.2;
+}
@@ -0,0 +1,155 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming 64-bit XXH64 hash used to fingerprint fetched content.
+ * <p>
+ * Bytes can be fed in as they are read from the network, so a change can be detected by comparing two
+ * {@code long}s instead of keeping and comparing whole payloads. Instances are not thread-safe.
+ */
+public final class ContentDigest {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE_LENGTH = 32;
+
+    private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long seed;
+    private final byte[] buffer = new byte[STRIPE_LENGTH];
+    private int bufferSize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public ContentDigest() {
+        this(0);
+    }
+
+    public ContentDigest(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public static long of(byte[] bytes) {
+        ContentDigest digest = new ContentDigest();
+        digest.update(bytes, 0, bytes.length);
+        return digest.getValue();
+    }
+
+    public static long of(String content) {
+        return of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void reset() {
+        v1 = seed + PRIME_1 + PRIME_2;
+        v2 = seed + PRIME_2;
+        v3 = seed;
+        v4 = seed - PRIME_1;
+        bufferSize = 0;
+        totalLength = 0;
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        totalLength += length;
+
+        if (bufferSize + length < STRIPE_LENGTH) {
+            System.arraycopy(bytes, offset, buffer, bufferSize, length);
+            bufferSize += length;
+            return;
+        }
+
+        int end = offset + length;
+
+        if (bufferSize > 0) {
+            int fill = STRIPE_LENGTH - bufferSize;
+            System.arraycopy(bytes, offset, buffer, bufferSize, fill);
+            processStripe(buffer, 0);
+            offset += fill;
+            bufferSize = 0;
+        }
+
+        while (offset + STRIPE_LENGTH <= end) {
+            processStripe(bytes, offset);
+            offset += STRIPE_LENGTH;
+        }
+
+        if (offset < end) {
+            bufferSize = end - offset;
+            System.arraycopy(bytes, offset, buffer, 0, bufferSize);
+        }
+    }
+
+    /**
+     * Returns the hash of all bytes supplied so far. Does not reset the digest.
+     */
+    public long getValue() {
+        long hash;
+
+        if (totalLength >= STRIPE_LENGTH) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME_5;
+        }
+
+        hash += totalLength;
+
+        int offset = 0;
+        while (offset + 8 <= bufferSize) {
+            hash ^= round(0, (long) LONG_HANDLE.get(buffer, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+            offset += 8;
+        }
+
+        if (offset + 4 <= bufferSize) {
+            hash ^= (Integer.toUnsignedLong((int) INT_HANDLE.get(buffer, offset))) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            offset += 4;
+        }
+
+        while (offset < bufferSize) {
+            hash ^= (buffer[offset] & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private void processStripe(byte[] bytes, int offset) {
+        v1 = round(v1, (long) LONG_HANDLE.get(bytes, offset));
+        v2 = round(v2, (long) LONG_HANDLE.get(bytes, offset + 8));
+        v3 = round(v3, (long) LONG_HANDLE.get(bytes, offset + 16));
+        v4 = round(v4, (long) LONG_HANDLE.get(bytes, offset + 24));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME_1 + PRIME_4;
+    }
+}
@@ -0,0 +1,22 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+/**
+ * How waiting requests are granted concurrency permits and rate-limit tokens.
+ */
+public enum FairnessPolicy {
+
+    /**
+     * Waiters are served strictly in arrival order, so a watcher that polls often cannot starve the others.
+     */
+    FIFO,
+
+    /**
+     * A request that arrives just as a permit frees up may take it ahead of earlier waiters. Slightly higher
+     * throughput, but no ordering guarantee.
+     */
+    BARGING;
+
+    public boolean isFair() {
+        return this == FIFO;
+    }
+}
@@ -0,0 +1,53 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@ToString
+public class FetchConfig {
+
+    /**
+     * Maximum number of requests executing concurrently across all watchers.
+     */
+    private int maxRequests = 64;
+
+    /**
+     * Maximum number of requests executing concurrently against a single host.
+     * With HTTP/2 these are multiplexed over a single connection.
+     */
+    private int maxRequestsPerHost = 8;
+
+    /**
+     * Sustained request rate allowed against a single host, shared by every watcher polling it.
+     * Disabled ({@code 0}) by default, so hosts are only rate limited when this or {@link #hostRequestsPerSecond}
+     * is set.
+     */
+    private double requestsPerSecondPerHost = 0;
+
+    /**
+     * Number of requests a rate-limited host may receive back to back before the sustained rate applies.
+     */
+    private int burstPerHost = 10;
+
+    /**
+     * Per-host overrides for {@link #requestsPerSecondPerHost}, keyed by host name. Lets only some hosts be rate
+     * limited while the default stays disabled.
+     */
+    private Map<String, Double> hostRequestsPerSecond;
+
+    /**
+     * Order in which requests waiting for a concurrency permit or rate-limit token are let through.
+     */
+    private FairnessPolicy fairness = FairnessPolicy.FIFO;
+
+    private int maxIdleConnections = 16;
+    private long keepAliveSeconds = 300;
+    private long connectTimeoutSeconds = 10;
+    private long writeTimeoutSeconds = 10;
+    private long readTimeoutSeconds = 30;
+}
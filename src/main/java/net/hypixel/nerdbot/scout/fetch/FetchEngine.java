@@ -0,0 +1,333 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared HTTP engine used by every {@link net.hypixel.nerdbot.scout.watcher.URLWatcher}.
+ * <p>
+ * All watchers submit their requests through a single {@link OkHttpClient} so that they share one connection
+ * pool (with HTTP/2 multiplexing where the server supports it) and one bounded dispatcher, instead of every
+ * watcher owning its own pool and threads. Blocking calls made through {@link #execute(Request, ResponseReader)}
+ * are held to the same global and per-host concurrency limits as the dispatcher, and to a per-host token bucket
+ * that keeps watchers sharing a host (and usually an API key) under its rate limit.
+ */
+@Slf4j
+public final class FetchEngine implements AutoCloseable {
+
+    private static volatile FetchEngine instance;
+
+    @Getter
+    private final OkHttpClient client;
+    /**
+     * Same client backed by a separate connection pool, so that hedge requests never share a (possibly stalled)
+     * connection with the request they are hedging.
+     */
+    private final OkHttpClient hedgeClient;
+    private final ConnectionPool connectionPool;
+    private final ConnectionPool hedgeConnectionPool;
+    private final ExecutorService hedgeExecutor;
+    private final Dispatcher dispatcher;
+    private final ExecutorService dispatcherExecutor;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final Semaphore requestPermits;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final boolean fair;
+    private final HostRateLimiter rateLimiter;
+
+    private FetchEngine(FetchConfig config) {
+        this.maxRequests = Math.max(1, config.getMaxRequests());
+        this.maxRequestsPerHost = Math.max(1, config.getMaxRequestsPerHost());
+        this.fair = config.getFairness() == null || config.getFairness().isFair();
+        this.requestPermits = new Semaphore(maxRequests, fair);
+        this.rateLimiter = new HostRateLimiter(config);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.dispatcherExecutor = new ThreadPoolExecutor(
+            0, maxRequests,
+            60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "FetchEngine-Dispatcher-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+
+        this.dispatcher = new Dispatcher(dispatcherExecutor);
+        this.dispatcher.setMaxRequests(maxRequests);
+        this.dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        this.connectionPool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+
+        this.client = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(connectionPool)
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .eventListenerFactory(call -> new MetricsEventListener())
+            .connectTimeout(config.getConnectTimeoutSeconds(), TimeUnit.SECONDS)
+            .writeTimeout(config.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+            .readTimeout(config.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+            .build();
+
+        this.hedgeConnectionPool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+        this.hedgeClient = client.newBuilder()
+            .connectionPool(hedgeConnectionPool)
+            .build();
+        this.hedgeExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("FetchEngine-Hedge-", 0).factory());
+    }
+
+    /**
+     * Replaces the shared engine with one built from the given config. Should be called once on startup,
+     * before any watchers are created.
+     */
+    public static synchronized FetchEngine initialize(FetchConfig config) {
+        FetchEngine previous = instance;
+        instance = new FetchEngine(config != null ? config : new FetchConfig());
+
+        if (previous != null) {
+            previous.close();
+        }
+
+        log.info("Fetch engine initialised with config: {}", config);
+        return instance;
+    }
+
+    /**
+     * Returns the shared engine, creating one with default settings if {@link #initialize(FetchConfig)}
+     * has not been called yet.
+     */
+    public static FetchEngine getInstance() {
+        FetchEngine engine = instance;
+        if (engine == null) {
+            synchronized (FetchEngine.class) {
+                if (instance == null) {
+                    instance = new FetchEngine(new FetchConfig());
+                }
+                engine = instance;
+            }
+        }
+        return engine;
+    }
+
+    public Call newCall(Request request) {
+        return client.newCall(request);
+    }
+
+    /**
+     * Executes a request on the calling thread and hands the response to {@code reader} before closing it.
+     * A rate-limit token for the host is taken first, so time spent waiting on the rate does not hold a concurrency
+     * slot. Concurrency permits are held until the reader returns, so body streaming counts against the limits too.
+     * Intended to be called from virtual threads, where waiting for a permit is cheap.
+     */
+    public <T> T execute(Request request, ResponseReader<T> reader) throws IOException {
+        return execute(client.newCall(request), reader, () -> {});
+    }
+
+    /**
+     * Like {@link #execute(Request, ResponseReader)}, but if no response has been read within {@code hedgeDelayNanos}
+     * of the request being sent a second, identical request is sent over a different connection. Whichever attempt
+     * completes first wins and the other is cancelled. Only use this for idempotent requests.
+     * <p>
+     * The delay only starts once the first request holds its rate-limit token and permits, so a request that is
+     * merely queued is never hedged. Both attempts may run {@code reader} to completion, so it must not have side
+     * effects; anything that should only count once belongs to the caller, applied to the returned result.
+     *
+     * @param url label used for the hedging metrics
+     */
+    public <T> T executeHedged(String url, Request request, ResponseReader<T> reader, long hedgeDelayNanos) throws IOException {
+        Call primaryCall = client.newCall(request);
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        CompletableFuture<T> primary = attempt(primaryCall, reader, () -> sent.complete(null));
+
+        try {
+            CompletableFuture.anyOf(sent, primary).get();
+            return primary.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exception) {
+            // Fall through and hedge
+        } catch (ExecutionException exception) {
+            throw unwrap(exception.getCause());
+        } catch (InterruptedException exception) {
+            primaryCall.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+
+        ScoutMetrics.URL_HEDGES.labels(url).inc();
+        log.debug("No response from {} after {}ms, sending hedge request", url, TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+
+        Call hedgeCall = hedgeClient.newCall(request);
+        CompletableFuture<T> hedge = attempt(hedgeCall, reader, () -> {});
+        CompletableFuture<T> winner = new CompletableFuture<>();
+
+        primary.whenComplete((result, throwable) -> complete(winner, result, throwable, hedge, hedgeCall, url, "primary"));
+        hedge.whenComplete((result, throwable) -> complete(winner, result, throwable, primary, primaryCall, url, "hedge"));
+
+        try {
+            return winner.get();
+        } catch (ExecutionException exception) {
+            throw unwrap(exception.getCause());
+        } catch (InterruptedException exception) {
+            primaryCall.cancel();
+            hedgeCall.cancel();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+    }
+
+    /**
+     * @param onSent called once the rate-limit token and permits have been acquired, right before the call is sent
+     */
+    private <T> T execute(Call call, ResponseReader<T> reader, Runnable onSent) throws IOException {
+        Request request = call.request();
+        String host = request.url().host();
+        Semaphore hostSemaphore = hostPermits.computeIfAbsent(host, key -> new Semaphore(maxRequestsPerHost, fair));
+
+        rateLimiter.acquire(host);
+        acquire(requestPermits);
+        try {
+            acquire(hostSemaphore);
+            onSent.run();
+            try (Response response = call.execute()) {
+                rateLimiter.update(host, response);
+                return reader.read(response);
+            } finally {
+                hostSemaphore.release();
+            }
+        } finally {
+            requestPermits.release();
+        }
+    }
+
+    private <T> CompletableFuture<T> attempt(Call call, ResponseReader<T> reader, Runnable onSent) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(call, reader, onSent);
+            } catch (IOException exception) {
+                throw new CompletionException(exception);
+            }
+        }, hedgeExecutor);
+    }
+
+    /**
+     * Completes {@code winner} with the first successful attempt and cancels the other one. Fails it only once
+     * both attempts have failed.
+     */
+    private static <T> void complete(CompletableFuture<T> winner, T result, Throwable throwable,
+                                     CompletableFuture<T> other, Call otherCall, String url, String attempt) {
+        if (throwable == null) {
+            if (winner.complete(result)) {
+                otherCall.cancel();
+                ScoutMetrics.URL_HEDGE_WINS.labels(url, attempt).inc();
+            }
+        } else if (other.isDone() && other.isCompletedExceptionally()) {
+            winner.completeExceptionally(throwable);
+        }
+    }
+
+    private static IOException unwrap(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return new IOException(cause);
+    }
+
+    @Override
+    public void close() {
+        dispatcher.cancelAll();
+        dispatcherExecutor.shutdown();
+        hedgeExecutor.shutdown();
+        connectionPool.evictAll();
+        hedgeConnectionPool.evictAll();
+    }
+
+    private static void acquire(Semaphore semaphore) throws InterruptedIOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request permit");
+        }
+    }
+
+    private void updatePoolMetrics() {
+        int blockingCalls = maxRequests - requestPermits.availablePermits();
+        ScoutMetrics.HTTP_POOL_CONNECTIONS.labels("total").set(connectionPool.connectionCount());
+        ScoutMetrics.HTTP_POOL_CONNECTIONS.labels("idle").set(connectionPool.idleConnectionCount());
+        ScoutMetrics.HTTP_DISPATCHER_CALLS.labels("running").set(dispatcher.runningCallsCount() + blockingCalls);
+        ScoutMetrics.HTTP_DISPATCHER_CALLS.labels("queued").set(dispatcher.queuedCallsCount());
+    }
+
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+        T read(Response response) throws IOException;
+    }
+
+    /**
+     * Per-call listener that records whether each call was served by a pooled connection or had to open a new one.
+     */
+    private class MetricsEventListener extends EventListener {
+
+        private boolean connected;
+
+        @Override
+        public void callStart(@NotNull Call call) {
+            updatePoolMetrics();
+        }
+
+        @Override
+        public void connectStart(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy) {
+            connected = true;
+        }
+
+        @Override
+        public void connectionAcquired(@NotNull Call call, @NotNull Connection connection) {
+            ScoutMetrics.HTTP_CONNECTIONS_ACQUIRED.labels(call.request().url().host(), String.valueOf(!connected)).inc();
+        }
+
+        @Override
+        public void callEnd(@NotNull Call call) {
+            updatePoolMetrics();
+        }
+
+        @Override
+        public void callFailed(@NotNull Call call, @NotNull IOException ioe) {
+            updatePoolMetrics();
+        }
+    }
+}
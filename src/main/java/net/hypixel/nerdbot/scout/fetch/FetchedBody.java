@@ -0,0 +1,97 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.Getter;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A response body read by {@link BodyReader}. Small bodies are held on the heap; bodies above the spill threshold
+ * are backed by a memory-mapped temporary file, so consumers should prefer {@link #asByteBuffer()},
+ * {@link #openStream()} or {@link #openReader()} over {@link #asString()} where they can.
+ */
+public final class FetchedBody {
+
+    private final ByteBuffer buffer;
+    @Getter
+    private final Charset charset;
+    @Getter
+    private final long digest;
+    @Getter
+    private final boolean spilled;
+    private String decoded;
+
+    FetchedBody(ByteBuffer buffer, Charset charset, long digest, boolean spilled) {
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.charset = charset;
+        this.digest = digest;
+        this.spilled = spilled;
+    }
+
+    public int getLength() {
+        return buffer.limit();
+    }
+
+    /**
+     * Returns an independent read-only view of the body positioned at its start.
+     */
+    public ByteBuffer asByteBuffer() {
+        return buffer.duplicate().rewind();
+    }
+
+    public InputStream openStream() {
+        return new ByteBufferInputStream(asByteBuffer());
+    }
+
+    public Reader openReader() {
+        return new InputStreamReader(openStream(), charset);
+    }
+
+    /**
+     * Decodes the body on first use and caches the result, so unchanged bodies never have to become a {@link String}.
+     */
+    public String asString() {
+        if (decoded == null) {
+            decoded = charset.decode(asByteBuffer()).toString();
+        }
+
+        return decoded;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class HedgingConfig {
+
+    /**
+     * When enabled, a second request is sent on a different connection if the first one is slow to answer.
+     * Meant for latency-critical watchers; it can double the request volume against slow upstreams.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Percentile of this watcher's recent fetch durations after which the hedge request is sent, between 0 and 1.
+     */
+    private double percentile = 0.95;
+
+    /**
+     * Lower bound for the hedge delay, so that fast, jittery upstreams are not hedged on every poll.
+     */
+    private long minDelayMillis = 250;
+
+    /**
+     * Number of recent fetch durations the percentile is computed over. Hedging starts once a quarter of the
+     * window has been filled.
+     */
+    private int sampleSize = 64;
+}
@@ -0,0 +1,183 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+import okhttp3.Response;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token-bucket rate limiter keyed by host, shared by every watcher.
+ * <p>
+ * Each host gets a bucket that refills at a steady rate up to a burst size. Callers block until a token is available,
+ * so watchers that happen to fire together are spread out instead of bursting past upstream limits. Buckets are
+ * corrected live from {@code RateLimit-Remaining} / {@code RateLimit-Reset} response headers: the upstream count is
+ * authoritative, and an exhausted quota pauses the host until the reported reset.
+ */
+@Slf4j
+final class HostRateLimiter {
+
+    private static final String REMAINING_HEADER = "RateLimit-Remaining";
+    private static final String RESET_HEADER = "RateLimit-Reset";
+
+    private final double defaultRequestsPerSecond;
+    private final int burst;
+    private final Map<String, Double> hostRequestsPerSecond;
+    private final boolean fair;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    HostRateLimiter(FetchConfig config) {
+        this.defaultRequestsPerSecond = config.getRequestsPerSecondPerHost();
+        this.burst = Math.max(1, config.getBurstPerHost());
+        this.hostRequestsPerSecond = config.getHostRequestsPerSecond() != null ? Map.copyOf(config.getHostRequestsPerSecond()) : Map.of();
+        this.fair = config.getFairness() == null || config.getFairness().isFair();
+    }
+
+    /**
+     * Blocks until the host has a token available and takes it.
+     */
+    void acquire(String host) throws InterruptedIOException {
+        Bucket bucket = bucket(host);
+        if (bucket == null) {
+            return;
+        }
+
+        long waitedNanos = bucket.acquire();
+        if (waitedNanos > 0) {
+            ScoutMetrics.HTTP_RATE_LIMIT_WAIT.labels(host).observe(waitedNanos / 1_000_000_000.0);
+        }
+    }
+
+    /**
+     * Applies any rate-limit headers on the response to the host's bucket.
+     */
+    void update(String host, Response response) {
+        Bucket bucket = bucket(host);
+        if (bucket == null) {
+            return;
+        }
+
+        Long remaining = parseLong(response.header(REMAINING_HEADER));
+        if (remaining == null) {
+            return;
+        }
+
+        Long resetSeconds = parseLong(response.header(RESET_HEADER));
+        bucket.sync(remaining, resetSeconds != null ? TimeUnit.SECONDS.toNanos(Math.max(0, resetSeconds)) : 0);
+        ScoutMetrics.HTTP_RATE_LIMIT_REMAINING.labels(host).set(remaining);
+    }
+
+    private Bucket bucket(String host) {
+        double rate = hostRequestsPerSecond.getOrDefault(host, defaultRequestsPerSecond);
+        if (rate <= 0) {
+            return null;
+        }
+
+        return buckets.computeIfAbsent(host, key -> new Bucket(rate, burst, fair));
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException exception) {
+            log.debug("Ignoring malformed rate-limit header value '{}'", value);
+            return null;
+        }
+    }
+
+    private static final class Bucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        // Held by the next waiter while it sleeps for a token, so with a fair lock waiters are served in arrival order
+        private final ReentrantLock lock;
+        private double tokens;
+        private long refilledAtNanos;
+        private long pausedUntilNanos;
+
+        private Bucket(double requestsPerSecond, int burst, boolean fair) {
+            this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = burst;
+            this.tokens = burst;
+            this.lock = new ReentrantLock(fair);
+            this.refilledAtNanos = System.nanoTime();
+            this.pausedUntilNanos = refilledAtNanos;
+        }
+
+        private long acquire() throws InterruptedIOException {
+            long startNanos = System.nanoTime();
+
+            try {
+                lock.lockInterruptibly();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a rate-limit token");
+            }
+
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long waitNanos = tryTake(now);
+                    if (waitNanos == 0) {
+                        return now - startNanos;
+                    }
+
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for a rate-limit token");
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @return {@code 0} if a token was taken, otherwise how long to wait before trying again
+         */
+        private synchronized long tryTake(long now) {
+            if (pausedUntilNanos - now > 0) {
+                return pausedUntilNanos - now;
+            }
+
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+
+        private synchronized void sync(long remaining, long resetNanos) {
+            long now = System.nanoTime();
+            refill(now);
+            tokens = Math.min(tokens, remaining);
+
+            if (remaining <= 0 && resetNanos > 0) {
+                pausedUntilNanos = now + resetNanos;
+                refilledAtNanos = pausedUntilNanos;
+            }
+        }
+
+        private void refill(long now) {
+            long elapsed = now - refilledAtNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                refilledAtNanos = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Cache validators returned by a server for a resource, used to issue conditional requests
+ * ({@code If-None-Match} / {@code If-Modified-Since}) so unchanged resources can be answered with a 304.
+ */
+public record HttpValidators(String etag, String lastModified) {
+
+    public static final HttpValidators NONE = new HttpValidators(null, null);
+
+    public static HttpValidators from(Response response) {
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+
+        if (etag == null && lastModified == null) {
+            return NONE;
+        }
+
+        return new HttpValidators(etag, lastModified);
+    }
+
+    public boolean isEmpty() {
+        return etag == null && lastModified == null;
+    }
+
+    public void applyTo(Request.Builder requestBuilder) {
+        if (etag != null) {
+            requestBuilder.header("If-None-Match", etag);
+        }
+
+        if (lastModified != null) {
+            requestBuilder.header("If-Modified-Since", lastModified);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring buffer of recent request durations, used to derive hedge delays from observed latency.
+ */
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[Math.max(1, size)];
+    }
+
+    public synchronized void record(long durationNanos) {
+        samples[next] = durationNanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    /**
+     * Returns the duration at the given percentile (between 0 and 1) of the recorded samples,
+     * or {@code -1} if nothing has been recorded yet.
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(Math.clamp(percentile, 0.0, 1.0) * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+}
@@ -7,85 +7,94 @@ import lombok.extern.slf4j.Slf4j;
 import net.hypixel.nerdbot.marmalade.format.DiscordTimestamp;
 import net.hypixel.nerdbot.marmalade.json.JsonUtils;
 import net.hypixel.nerdbot.marmalade.format.StringUtils;
-import net.hypixel.nerdbot.marmalade.Tuple;
-import net.hypixel.nerdbot.scout.Main;
 import net.hypixel.nerdbot.scout.ScoutMetrics;
+import net.hypixel.nerdbot.scout.config.WatcherConfig;
+import net.hypixel.nerdbot.scout.diff.KeyedListDiff;
+import net.hypixel.nerdbot.scout.route.Destination;
+import net.hypixel.nerdbot.scout.route.RoutingTable;
+import net.hypixel.nerdbot.scout.route.SubscriberRegistry;
 import net.hypixel.nerdbot.scout.webhook.DiscordWebhook;
+import net.hypixel.nerdbot.scout.watcher.DataChange;
 import net.hypixel.nerdbot.scout.watcher.URLWatcher;
 
 import java.awt.Color;
 import java.util.List;
 
 @Slf4j
-public class FireSaleDataHandler implements URLWatcher.DataHandler {
+public class FireSaleDataHandler implements URLWatcher.SnapshotHandler<JsonArray> {
+
+    public static final String FIRE_SALE_EVENT = "fire_sale";
+
+    private static final String SALES_POINTER = "/sales";
+    // A sale that is re-run for the same item gets a new start time
+    private static final List<String> DEFAULT_SALE_KEYS = List.of("item_id", "start");
+
+    private volatile KeyedListDiff salesDiff = new KeyedListDiff(SALES_POINTER, DEFAULT_SALE_KEYS);
 
     @Override
-    public void handleData(String oldContent, String newContent, List<Tuple<String, Object, Object>> changedValues) {
-        log.info("Fire sale data changed!");
-        log.debug("Changed values: " + changedValues);
-        ScoutMetrics.DATA_CHANGES_DETECTED.labels("fire-sales").inc();
+    public void configure(WatcherConfig config) {
+        List<String> keys = config.getArrayKeys() != null ? config.getArrayKeys().get(SALES_POINTER) : null;
+        if (keys != null && !keys.isEmpty()) {
+            salesDiff = new KeyedListDiff(SALES_POINTER, keys);
+        }
+    }
 
-        JsonArray oldSaleData = JsonUtils.parseString(oldContent).getAsJsonObject().getAsJsonArray("sales");
-        JsonArray newSaleData = JsonUtils.parseString(newContent).getAsJsonObject().getAsJsonArray("sales");
+    @Override
+    public JsonArray parseSnapshot(String content) {
+        return salesDiff.select(JsonUtils.parseString(content));
+    }
 
-        for (int i = 0; i < oldSaleData.size(); i++) {
-            for (int j = 0; j < newSaleData.size(); j++) {
-                JsonObject oldObject = oldSaleData.get(i).getAsJsonObject();
-                JsonObject newObject = newSaleData.get(j).getAsJsonObject();
+    @Override
+    public void handleSnapshot(JsonArray oldSaleData, JsonArray newSaleData, DataChange change) {
+        log.info("Fire sale data changed!");
+        ScoutMetrics.DATA_CHANGES_DETECTED.labels("fire-sales").inc();
 
-                if (isEqual(oldObject, newObject)) {
-                    newSaleData.remove(j);
-                    log.debug("Removed " + oldSaleData.get(i).getAsJsonObject().get("item_id").getAsString() + " from the new sale data list.");
-                    break;
-                }
-            }
+        if (oldSaleData == null || newSaleData == null) {
+            log.debug("No previous or current fire sale data to compare against");
+            return;
         }
 
-        if (newSaleData.isEmpty()) {
+        List<JsonObject> newSales = salesDiff.diff(oldSaleData, newSaleData).addedElements().stream()
+            .filter(JsonElement::isJsonObject)
+            .map(JsonElement::getAsJsonObject)
+            .toList();
+
+        if (newSales.isEmpty()) {
             log.info("No new sale data found!");
             return;
         }
 
         JsonObject embed = DiscordWebhook.createEmbed("New Fire Sale!", null, null, Color.GREEN.getRGB() & 0xFFFFFF);
 
-        newSaleData.asList().stream()
-            .map(JsonElement::getAsJsonObject)
-            .forEachOrdered(jsonObject -> {
-                String itemId = jsonObject.get("item_id").getAsString();
-                DiscordTimestamp startTime = new DiscordTimestamp(jsonObject.get("start").getAsLong());
-                DiscordTimestamp endTime = new DiscordTimestamp(jsonObject.get("end").getAsLong());
-                int amount = jsonObject.get("amount").getAsInt();
-                int price = jsonObject.get("price").getAsInt();
-
-                log.info("Found new sale data for item " + itemId + "!");
-
-                String fieldValue = "Start Time: " + startTime.toLongDateTime() +
-                    " (" + startTime.toRelativeTimestamp() + ")" + "\n" +
-                    "End Time: " + endTime.toLongDateTime() +
-                    " (" + endTime.toRelativeTimestamp() + ")" + "\n" +
-                    "Amount: " + StringUtils.COMMA_SEPARATED_FORMAT.format(amount) + "x\n" +
-                    "Price: " + StringUtils.COMMA_SEPARATED_FORMAT.format(price) + " SkyBlock Gems";
-
-                DiscordWebhook.addField(embed, itemId, fieldValue, false);
-            });
-
-        // Look up webhook URL from the active watcher config
-        String webhookUrl = Main.getWebhookUrlForHandler(this.getClass().getName());
-        String alertRoleId = Main.getAlertRoleIdForHandler(this.getClass().getName());
-
-        if (webhookUrl != null) {
-            String content = null;
-            if (alertRoleId != null && !alertRoleId.isBlank()) {
-                content = "<@&" + alertRoleId + ">";
-            }
-
-            DiscordWebhook.send(webhookUrl, content, List.of(embed));
-        } else {
+        newSales.forEach(jsonObject -> {
+            String itemId = jsonObject.get("item_id").getAsString();
+            DiscordTimestamp startTime = new DiscordTimestamp(jsonObject.get("start").getAsLong());
+            DiscordTimestamp endTime = new DiscordTimestamp(jsonObject.get("end").getAsLong());
+            int amount = jsonObject.get("amount").getAsInt();
+            int price = jsonObject.get("price").getAsInt();
+
+            log.info("Found new sale data for item " + itemId + "!");
+
+            String fieldValue = "Start Time: " + startTime.toLongDateTime() +
+                " (" + startTime.toRelativeTimestamp() + ")" + "\n" +
+                "End Time: " + endTime.toLongDateTime() +
+                " (" + endTime.toRelativeTimestamp() + ")" + "\n" +
+                "Amount: " + StringUtils.COMMA_SEPARATED_FORMAT.format(amount) + "x\n" +
+                "Price: " + StringUtils.COMMA_SEPARATED_FORMAT.format(price) + " SkyBlock Gems";
+
+            DiscordWebhook.addField(embed, itemId, fieldValue, false);
+        });
+
+        SubscriberRegistry.getInstance().publish(FIRE_SALE_EVENT, DiscordWebhook.createPayload(null, List.of(embed)));
+
+        List<Destination> destinations = RoutingTable.getInstance().destinations(change.getSource(), FIRE_SALE_EVENT);
+        if (destinations.isEmpty() && SubscriberRegistry.getInstance().subscribers(FIRE_SALE_EVENT).isEmpty()) {
             log.warn("No webhook URL configured for fire sale handler");
+            return;
         }
-    }
 
-    private boolean isEqual(JsonObject oldObject, JsonObject newObject) {
-        return oldObject.get("item_id").getAsString().equals(newObject.get("item_id").getAsString());
+        for (Destination destination : destinations) {
+            DiscordWebhook.send(destination.webhookUrl(), destination.mention(), List.of(embed));
+        }
     }
 }
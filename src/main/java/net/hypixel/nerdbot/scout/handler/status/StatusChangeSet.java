@@ -0,0 +1,43 @@
+package net.hypixel.nerdbot.scout.handler.status;
+
+import java.util.List;
+
+/**
+ * The incidents and maintenances that changed between two status page snapshots, as found by
+ * {@link StatusPageChangeDetector#detectChanges}.
+ * <p>
+ * Items that reached a terminal status ({@code resolved} or {@code completed}) are reported separately from other new
+ * or updated items, and only if the config asks for them.
+ */
+public record StatusChangeSet(
+    List<StatusPageResponse.Incident> newIncidents,
+    List<StatusPageResponse.Incident> updatedIncidents,
+    List<StatusPageResponse.Incident> resolvedIncidents,
+    List<StatusPageResponse.ScheduledMaintenance> newMaintenances,
+    List<StatusPageResponse.ScheduledMaintenance> updatedMaintenances,
+    List<StatusPageResponse.ScheduledMaintenance> completedMaintenances
+) {
+
+    public static final StatusChangeSet EMPTY = new StatusChangeSet(List.of(), List.of(), List.of(), List.of(), List.of(), List.of());
+
+    public StatusChangeSet {
+        newIncidents = List.copyOf(newIncidents);
+        updatedIncidents = List.copyOf(updatedIncidents);
+        resolvedIncidents = List.copyOf(resolvedIncidents);
+        newMaintenances = List.copyOf(newMaintenances);
+        updatedMaintenances = List.copyOf(updatedMaintenances);
+        completedMaintenances = List.copyOf(completedMaintenances);
+    }
+
+    public boolean hasIncidentChanges() {
+        return !newIncidents.isEmpty() || !updatedIncidents.isEmpty() || !resolvedIncidents.isEmpty();
+    }
+
+    public boolean hasMaintenanceChanges() {
+        return !newMaintenances.isEmpty() || !updatedMaintenances.isEmpty() || !completedMaintenances.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return !hasIncidentChanges() && !hasMaintenanceChanges();
+    }
+}
@@ -2,13 +2,13 @@ package net.hypixel.nerdbot.scout.handler.status;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.hypixel.nerdbot.scout.handler.status.StatusPageConfig;
-import net.hypixel.nerdbot.scout.handler.status.StatusPageResponse;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -16,92 +16,86 @@ public class StatusPageChangeDetector {
 
     private final StatusPageConfig config;
 
-    public List<StatusPageResponse.Incident> findNewIncidents(StatusPageResponse oldData, StatusPageResponse newData) {
-        if (newData.getIncidents() == null || newData.getIncidents().isEmpty()) {
-            return new ArrayList<>();
+    /**
+     * Compares two snapshots in a single pass over each list, matching items by id through an index of the old
+     * snapshot. New items are reported as new even when there is no old snapshot.
+     */
+    public StatusChangeSet detectChanges(StatusPageResponse oldData, StatusPageResponse newData) {
+        if (newData == null) {
+            return StatusChangeSet.EMPTY;
         }
 
-        Set<String> oldIncidentIds = new HashSet<>();
-        if (oldData != null && oldData.getIncidents() != null) {
-            oldData.getIncidents().forEach(incident -> oldIncidentIds.add(incident.getId()));
-        }
-
-        List<StatusPageResponse.Incident> newIncidents = newData.getIncidents().stream()
-            .filter(incident -> !oldIncidentIds.contains(incident.getId()))
-            .toList();
-
-        if (config.isIncludeResolvedIncidents()) {
-            return newIncidents;
-        }
-
-        return newIncidents.stream()
-            .filter(incident -> !incident.getStatus().equalsIgnoreCase("resolved"))
-            .toList();
+        List<StatusPageResponse.Incident> newIncidents = new ArrayList<>();
+        List<StatusPageResponse.Incident> updatedIncidents = new ArrayList<>();
+        List<StatusPageResponse.Incident> resolvedIncidents = new ArrayList<>();
+        classify(
+            oldData != null ? oldData.getIncidents() : null,
+            newData.getIncidents(),
+            StatusPageResponse.Incident::getId,
+            StatusPageResponse.Incident::getStatus,
+            "resolved",
+            this::hasIncidentChanged,
+            newIncidents,
+            updatedIncidents,
+            config.isIncludeResolvedIncidents() ? resolvedIncidents : null
+        );
+
+        List<StatusPageResponse.ScheduledMaintenance> newMaintenances = new ArrayList<>();
+        List<StatusPageResponse.ScheduledMaintenance> updatedMaintenances = new ArrayList<>();
+        List<StatusPageResponse.ScheduledMaintenance> completedMaintenances = new ArrayList<>();
+        classify(
+            oldData != null ? oldData.getScheduledMaintenances() : null,
+            newData.getScheduledMaintenances(),
+            StatusPageResponse.ScheduledMaintenance::getId,
+            StatusPageResponse.ScheduledMaintenance::getStatus,
+            "completed",
+            this::hasMaintenanceChanged,
+            newMaintenances,
+            updatedMaintenances,
+            config.isIncludeCompletedMaintenances() ? completedMaintenances : null
+        );
+
+        return new StatusChangeSet(newIncidents, updatedIncidents, resolvedIncidents,
+            newMaintenances, updatedMaintenances, completedMaintenances);
     }
 
-    public List<StatusPageResponse.Incident> findUpdatedIncidents(StatusPageResponse oldData, StatusPageResponse newData) {
-        if (oldData == null || oldData.getIncidents() == null || newData.getIncidents() == null) {
-            return new ArrayList<>();
+    /**
+     * Sorts every item of {@code newItems} that is new or changed into {@code added}, {@code updated} or, once it has
+     * reached {@code terminalStatus}, {@code terminal}. Terminal items are dropped if {@code terminal} is {@code null}.
+     */
+    private static <T> void classify(List<T> oldItems, List<T> newItems, Function<T, String> id, Function<T, String> status,
+                                     String terminalStatus, BiPredicate<T, T> changed,
+                                     List<T> added, List<T> updated, List<T> terminal) {
+        if (newItems == null || newItems.isEmpty()) {
+            return;
         }
 
-        List<StatusPageResponse.Incident> updatedIncidents = newData.getIncidents().stream()
-            .filter(newIncident -> {
-                return oldData.getIncidents().stream()
-                    .anyMatch(oldIncident -> oldIncident.getId().equals(newIncident.getId())
-                        && hasIncidentChanged(oldIncident, newIncident));
-            }).toList();
-
-        if (config.isIncludeResolvedIncidents()) {
-            return updatedIncidents;
+        Map<String, T> oldById = new HashMap<>();
+        if (oldItems != null) {
+            for (T item : oldItems) {
+                oldById.putIfAbsent(id.apply(item), item);
+            }
         }
 
-        return updatedIncidents.stream()
-            .filter(incident -> !incident.getStatus().equalsIgnoreCase("resolved"))
-            .toList();
-    }
-
-    public List<StatusPageResponse.ScheduledMaintenance> findNewMaintenances(StatusPageResponse oldData, StatusPageResponse newData) {
-        if (newData.getScheduledMaintenances() == null || newData.getScheduledMaintenances().isEmpty()) {
-            return new ArrayList<>();
+        for (T item : newItems) {
+            T previous = oldById.get(id.apply(item));
+            List<T> target;
+            if (previous == null) {
+                target = added;
+            } else if (changed.test(previous, item)) {
+                target = updated;
+            } else {
+                continue;
+            }
+
+            if (terminalStatus.equalsIgnoreCase(status.apply(item))) {
+                target = terminal;
+            }
+
+            if (target != null) {
+                target.add(item);
+            }
         }
-
-        Set<String> oldMaintenanceIds = new HashSet<>();
-        if (oldData != null && oldData.getScheduledMaintenances() != null) {
-            oldData.getScheduledMaintenances().forEach(maintenance -> oldMaintenanceIds.add(maintenance.getId()));
-        }
-
-        List<StatusPageResponse.ScheduledMaintenance> newMaintenances = newData.getScheduledMaintenances().stream()
-            .filter(maintenance -> !oldMaintenanceIds.contains(maintenance.getId()))
-            .toList();
-
-        if (config.isIncludeCompletedMaintenances()) {
-            return newMaintenances;
-        }
-
-        return newMaintenances.stream()
-            .filter(maintenance -> !maintenance.getStatus().equalsIgnoreCase("completed"))
-            .toList();
-    }
-
-    public List<StatusPageResponse.ScheduledMaintenance> findUpdatedMaintenances(StatusPageResponse oldData, StatusPageResponse newData) {
-        if (oldData == null || oldData.getScheduledMaintenances() == null || newData.getScheduledMaintenances() == null) {
-            return new ArrayList<>();
-        }
-
-        List<StatusPageResponse.ScheduledMaintenance> updatedMaintenances = newData.getScheduledMaintenances().stream()
-            .filter(newMaintenance -> {
-                return oldData.getScheduledMaintenances().stream()
-                    .anyMatch(oldMaintenance -> oldMaintenance.getId().equals(newMaintenance.getId())
-                        && hasMaintenanceChanged(oldMaintenance, newMaintenance));
-            }).toList();
-
-        if (config.isIncludeCompletedMaintenances()) {
-            return updatedMaintenances;
-        }
-
-        return updatedMaintenances.stream()
-            .filter(maintenance -> !maintenance.getStatus().equalsIgnoreCase("completed"))
-            .toList();
     }
 
     public boolean hasIncidentChanged(StatusPageResponse.Incident oldIncident, StatusPageResponse.Incident newIncident) {
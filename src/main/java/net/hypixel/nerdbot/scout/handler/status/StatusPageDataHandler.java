@@ -2,18 +2,24 @@ package net.hypixel.nerdbot.scout.handler.status;
 
 import com.google.gson.JsonObject;
 import lombok.extern.slf4j.Slf4j;
-import net.hypixel.nerdbot.marmalade.Tuple;
 import net.hypixel.nerdbot.marmalade.json.DataSerialization;
 import net.hypixel.nerdbot.scout.Main;
 import net.hypixel.nerdbot.scout.ScoutMetrics;
+import net.hypixel.nerdbot.scout.route.Destination;
+import net.hypixel.nerdbot.scout.route.RoutingTable;
 import net.hypixel.nerdbot.scout.webhook.DiscordWebhook;
+import net.hypixel.nerdbot.scout.watcher.DataChange;
 import net.hypixel.nerdbot.scout.watcher.URLWatcher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
 @Slf4j
-public class StatusPageDataHandler implements URLWatcher.DataHandler {
+public class StatusPageDataHandler implements URLWatcher.SnapshotHandler<StatusPageResponse> {
+
+    public static final String INCIDENT_EVENT = "incident";
+    public static final String MAINTENANCE_EVENT = "maintenance";
 
     private final StatusPageConfig config;
     private final StatusPageChangeDetector changeDetector;
@@ -26,40 +32,55 @@ public class StatusPageDataHandler implements URLWatcher.DataHandler {
     }
 
     @Override
-    public void handleData(String oldContent, String newContent, List<Tuple<String, Object, Object>> changedValues) {
+    public StatusPageResponse parseSnapshot(String content) {
+        return parseStatusData(content);
+    }
+
+    @Override
+    public void handleSnapshot(StatusPageResponse oldData, StatusPageResponse newData, DataChange change) {
         log.info("Status page data changed!");
         ScoutMetrics.DATA_CHANGES_DETECTED.labels("status-page").inc();
 
         try {
-            StatusPageResponse oldData = parseStatusData(oldContent);
-            StatusPageResponse newData = parseStatusData(newContent);
-
             if (newData == null) {
                 log.warn("Failed to parse new status page data");
                 return;
             }
 
-            List<JsonObject> embedsToSend = Stream.of(
-                processIncidents(oldData, newData),
-                processMaintenances(oldData, newData)
-            ).flatMap(List::stream).toList();
+            StatusChangeSet changes = changeDetector.detectChanges(oldData, newData);
+            List<JsonObject> incidentEmbeds = processIncidents(changes).toList();
+            List<JsonObject> maintenanceEmbeds = processMaintenances(changes).toList();
 
-            boolean shouldPing = hasIncidentChanges(oldData, newData) && config.isEnableStatusAlerts() ||
-                hasMaintenanceChanges(oldData, newData) && config.isEnableMaintenanceAlerts();
+            if (incidentEmbeds.isEmpty() && maintenanceEmbeds.isEmpty()) {
+                log.debug("No significant status changes detected");
+                return;
+            }
 
-            if (!embedsToSend.isEmpty()) {
-                String resolvedWebhookUrl = Main.getWebhookUrlForHandler(this.getClass().getName());
-                String resolvedAlertRoleId = Main.getAlertRoleIdForHandler(this.getClass().getName());
+            List<Destination> destinations = RoutingTable.getInstance().destinations(change.getSource());
+            if (destinations.isEmpty()) {
+                log.warn("No webhook URL configured for status page handler");
+                return;
+            }
 
-                String content = null;
-                if (shouldPing && !resolvedAlertRoleId.isBlank()) {
-                    content = "<@&" + resolvedAlertRoleId + ">";
+            // Each destination only gets, and is only pinged for, the kinds of events it subscribed to
+            for (Destination destination : destinations) {
+                List<JsonObject> embedsToSend = new ArrayList<>();
+                boolean shouldPing = false;
+
+                if (destination.accepts(INCIDENT_EVENT)) {
+                    embedsToSend.addAll(incidentEmbeds);
+                    shouldPing = changes.hasIncidentChanges() && config.isEnableStatusAlerts();
                 }
 
-                DiscordWebhook.send(resolvedWebhookUrl, content, embedsToSend);
-                log.info("Sent {} status embeds via webhook", embedsToSend.size());
-            } else {
-                log.debug("No significant status changes detected");
+                if (destination.accepts(MAINTENANCE_EVENT)) {
+                    embedsToSend.addAll(maintenanceEmbeds);
+                    shouldPing |= changes.hasMaintenanceChanges() && config.isEnableMaintenanceAlerts();
+                }
+
+                if (!embedsToSend.isEmpty()) {
+                    DiscordWebhook.send(destination.webhookUrl(), shouldPing ? destination.mention() : null, embedsToSend);
+                    log.info("Sent {} status embeds via webhook", embedsToSend.size());
+                }
             }
         } catch (Exception e) {
             log.error("Error processing status page data", e);
@@ -79,63 +100,37 @@ public class StatusPageDataHandler implements URLWatcher.DataHandler {
         }
     }
 
-    private List<JsonObject> processIncidents(StatusPageResponse oldData, StatusPageResponse newData) {
-        return Stream.concat(
-            processNewIncidents(oldData, newData),
-            processUpdatedIncidents(oldData, newData)
-        ).toList();
+    private Stream<JsonObject> processIncidents(StatusChangeSet changes) {
+        return Stream.of(
+            incidentEmbeds(changes.newIncidents(), "new", true),
+            incidentEmbeds(changes.updatedIncidents(), "updated", false),
+            incidentEmbeds(changes.resolvedIncidents(), "resolved", false)
+        ).flatMap(embeds -> embeds);
     }
 
-    private List<JsonObject> processMaintenances(StatusPageResponse oldData, StatusPageResponse newData) {
-        return Stream.concat(
-            processNewMaintenances(oldData, newData),
-            processUpdatedMaintenances(oldData, newData)
-        ).toList();
+    private Stream<JsonObject> processMaintenances(StatusChangeSet changes) {
+        return Stream.of(
+            maintenanceEmbeds(changes.newMaintenances(), "new", true),
+            maintenanceEmbeds(changes.updatedMaintenances(), "updated", false),
+            maintenanceEmbeds(changes.completedMaintenances(), "completed", false)
+        ).flatMap(embeds -> embeds);
     }
 
-    private Stream<JsonObject> processNewIncidents(StatusPageResponse oldData, StatusPageResponse newData) {
-        return changeDetector.findNewIncidents(oldData, newData).stream()
-            .peek(incident -> log.info("Found new incident: {} ({})", incident.getName(), incident.getStatus()))
+    private Stream<JsonObject> incidentEmbeds(List<StatusPageResponse.Incident> incidents, String kind, boolean isNew) {
+        return incidents.stream()
+            .peek(incident -> log.info("Found {} incident: {} ({})", kind, incident.getName(), incident.getStatus()))
             .map(incident -> {
-                StatusPageEventType eventType = StatusPageEventType.fromIncidentStatus(incident.getStatus(), true);
+                StatusPageEventType eventType = StatusPageEventType.fromIncidentStatus(incident.getStatus(), isNew);
                 return embedFactory.createIncidentEmbed(incident, eventType);
             });
     }
 
-    private Stream<JsonObject> processUpdatedIncidents(StatusPageResponse oldData, StatusPageResponse newData) {
-        return changeDetector.findUpdatedIncidents(oldData, newData).stream()
-            .peek(incident -> log.info("Found updated incident: {} ({})", incident.getName(), incident.getStatus()))
-            .map(incident -> {
-                StatusPageEventType eventType = StatusPageEventType.fromIncidentStatus(incident.getStatus(), false);
-                return embedFactory.createIncidentEmbed(incident, eventType);
-            });
-    }
-
-    private Stream<JsonObject> processNewMaintenances(StatusPageResponse oldData, StatusPageResponse newData) {
-        return changeDetector.findNewMaintenances(oldData, newData).stream()
-            .peek(maintenance -> log.info("Found new maintenance: {} ({})", maintenance.getName(), maintenance.getStatus()))
-            .map(maintenance -> {
-                StatusPageEventType eventType = StatusPageEventType.fromMaintenanceStatus(maintenance.getStatus(), true);
-                return embedFactory.createMaintenanceEmbed(maintenance, eventType);
-            });
-    }
-
-    private Stream<JsonObject> processUpdatedMaintenances(StatusPageResponse oldData, StatusPageResponse newData) {
-        return changeDetector.findUpdatedMaintenances(oldData, newData).stream()
-            .peek(maintenance -> log.info("Found updated maintenance: {} ({})", maintenance.getName(), maintenance.getStatus()))
+    private Stream<JsonObject> maintenanceEmbeds(List<StatusPageResponse.ScheduledMaintenance> maintenances, String kind, boolean isNew) {
+        return maintenances.stream()
+            .peek(maintenance -> log.info("Found {} maintenance: {} ({})", kind, maintenance.getName(), maintenance.getStatus()))
             .map(maintenance -> {
-                StatusPageEventType eventType = StatusPageEventType.fromMaintenanceStatus(maintenance.getStatus(), false);
+                StatusPageEventType eventType = StatusPageEventType.fromMaintenanceStatus(maintenance.getStatus(), isNew);
                 return embedFactory.createMaintenanceEmbed(maintenance, eventType);
             });
     }
-
-    private boolean hasIncidentChanges(StatusPageResponse oldData, StatusPageResponse newData) {
-        return !changeDetector.findNewIncidents(oldData, newData).isEmpty() ||
-            !changeDetector.findUpdatedIncidents(oldData, newData).isEmpty();
-    }
-
-    private boolean hasMaintenanceChanges(StatusPageResponse oldData, StatusPageResponse newData) {
-        return !changeDetector.findNewMaintenances(oldData, newData).isEmpty() ||
-            !changeDetector.findUpdatedMaintenances(oldData, newData).isEmpty();
-    }
 }
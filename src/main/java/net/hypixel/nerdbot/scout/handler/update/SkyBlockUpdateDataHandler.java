@@ -2,17 +2,24 @@ package net.hypixel.nerdbot.scout.handler.update;
 
 import lombok.extern.slf4j.Slf4j;
 import net.hypixel.nerdbot.scout.xml.SkyBlockThreadParser.HypixelThread;
-import net.hypixel.nerdbot.scout.Main;
 import net.hypixel.nerdbot.scout.ScoutMetrics;
+import net.hypixel.nerdbot.scout.route.Destination;
+import net.hypixel.nerdbot.scout.route.RoutingTable;
+import net.hypixel.nerdbot.scout.route.SubscriberRegistry;
+import net.hypixel.nerdbot.scout.watcher.URLWatcher;
 import net.hypixel.nerdbot.scout.webhook.DiscordWebhook;
 
+import java.util.List;
+
 @Slf4j
 public final class SkyBlockUpdateDataHandler {
 
+    public static final String THREAD_EVENT = "thread";
+
     private SkyBlockUpdateDataHandler() {
     }
 
-    public static void handleThread(HypixelThread hypixelThread) {
+    public static void handleThread(URLWatcher source, HypixelThread hypixelThread) {
         // Simple check to make sure only SkyBlock threads are sent
         if (!hypixelThread.getForum().equals("SkyBlock Patch Notes") && (!hypixelThread.getTitle().contains("SkyBlock"))) {
             return;
@@ -20,20 +27,24 @@ public final class SkyBlockUpdateDataHandler {
 
         ScoutMetrics.DATA_CHANGES_DETECTED.labels("skyblock-updates").inc();
 
-        String webhookUrl = Main.getWebhookUrlForHandler(SkyBlockUpdateDataHandler.class.getName());
-        String alertRoleId = Main.getAlertRoleIdForHandler(SkyBlockUpdateDataHandler.class.getName());
+        SubscriberRegistry.getInstance().publish(THREAD_EVENT, DiscordWebhook.createPayload(hypixelThread.getLink(), null));
 
-        if (webhookUrl != null) {
+        List<Destination> destinations = RoutingTable.getInstance().destinations(source, THREAD_EVENT);
+        if (destinations.isEmpty() && SubscriberRegistry.getInstance().subscribers(THREAD_EVENT).isEmpty()) {
+            log.warn("No webhook URL configured for SkyBlock update handler");
+            return;
+        }
+
+        for (Destination destination : destinations) {
             StringBuilder content = new StringBuilder();
 
-            if (!alertRoleId.isBlank()) {
-                content.append("<@&").append(alertRoleId).append(">\n\n");
+            String mention = destination.mention();
+            if (mention != null) {
+                content.append(mention).append("\n\n");
             }
 
             content.append(hypixelThread.getLink());
-            DiscordWebhook.sendMessage(webhookUrl, content.toString());
-        } else {
-            log.warn("No webhook URL configured for SkyBlock update handler");
+            DiscordWebhook.sendMessage(destination.webhookUrl(), content.toString());
         }
     }
 }
@@ -0,0 +1,26 @@
+package net.hypixel.nerdbot.scout.route;
+
+import java.util.Set;
+
+/**
+ * A webhook that a watcher's events are delivered to.
+ *
+ * @param events the events this destination receives, or an empty set for all of them
+ */
+public record Destination(String webhookUrl, String alertRoleId, Set<String> events) {
+
+    public Destination {
+        events = events != null ? Set.copyOf(events) : Set.of();
+    }
+
+    public boolean accepts(String event) {
+        return events.isEmpty() || events.contains(event);
+    }
+
+    /**
+     * @return the role mention to put in the message content, or {@code null} if no role is configured
+     */
+    public String mention() {
+        return alertRoleId != null && !alertRoleId.isBlank() ? "<@&" + alertRoleId + ">" : null;
+    }
+}
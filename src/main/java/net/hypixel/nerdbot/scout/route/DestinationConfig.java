@@ -0,0 +1,26 @@
+package net.hypixel.nerdbot.scout.route;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class DestinationConfig {
+
+    private String webhookUrl;
+
+    /**
+     * Optional role ID to mention when an event sent here warrants an alert.
+     */
+    private String alertRoleId;
+
+    /**
+     * Events this destination receives, such as {@code incident} and {@code maintenance} for the status page.
+     * Leave empty to receive every event of the watcher.
+     */
+    private List<String> events;
+}
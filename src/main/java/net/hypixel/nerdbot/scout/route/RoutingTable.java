@@ -0,0 +1,99 @@
+package net.hypixel.nerdbot.scout.route;
+
+import net.hypixel.nerdbot.scout.config.WatcherConfig;
+import net.hypixel.nerdbot.scout.watcher.URLWatcher;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where each running watcher's events are delivered.
+ * <p>
+ * A table is built once from the watcher configs whenever the set of watchers changes and is never modified
+ * afterwards. The current table is swapped as a whole, so handlers resolve their destinations with a single lookup
+ * by watcher instance and without locking, and two watchers sharing a handler class can still route differently.
+ */
+public final class RoutingTable {
+
+    public static final RoutingTable EMPTY = new RoutingTable(Map.of());
+
+    private static volatile RoutingTable current = EMPTY;
+
+    private final Map<URLWatcher, List<Destination>> routes;
+
+    private RoutingTable(Map<URLWatcher, List<Destination>> routes) {
+        this.routes = routes;
+    }
+
+    public static RoutingTable getInstance() {
+        return current;
+    }
+
+    /**
+     * Makes the table the one handlers resolve destinations from.
+     */
+    public static void publish(RoutingTable table) {
+        current = table;
+    }
+
+    /**
+     * Builds a table from the config of each watcher. A watcher's {@code webhookUrl} and {@code alertRoleId} form a
+     * destination that receives all events, followed by its {@code destinations}.
+     */
+    public static RoutingTable build(Map<URLWatcher, WatcherConfig> watchers) {
+        Map<URLWatcher, List<Destination>> routes = new IdentityHashMap<>(watchers.size() * 2);
+
+        watchers.forEach((watcher, config) -> {
+            List<Destination> destinations = new ArrayList<>();
+
+            if (config.getWebhookUrl() != null && !config.getWebhookUrl().isBlank()) {
+                destinations.add(new Destination(config.getWebhookUrl(), config.getAlertRoleId(), null));
+            }
+
+            if (config.getDestinations() != null) {
+                for (DestinationConfig destination : config.getDestinations()) {
+                    if (destination.getWebhookUrl() != null && !destination.getWebhookUrl().isBlank()) {
+                        destinations.add(new Destination(
+                            destination.getWebhookUrl(),
+                            destination.getAlertRoleId(),
+                            destination.getEvents() != null ? Set.copyOf(destination.getEvents()) : null
+                        ));
+                    }
+                }
+            }
+
+            routes.put(watcher, List.copyOf(destinations));
+        });
+
+        return new RoutingTable(routes);
+    }
+
+    /**
+     * @return every destination of the watcher, or an empty list if it has none or is not running
+     */
+    public List<Destination> destinations(URLWatcher source) {
+        if (source == null) {
+            return List.of();
+        }
+
+        List<Destination> destinations = routes.get(source);
+        return destinations != null ? destinations : List.of();
+    }
+
+    /**
+     * @return the destinations of the watcher that receive the given event
+     */
+    public List<Destination> destinations(URLWatcher source, String event) {
+        List<Destination> destinations = destinations(source);
+        for (Destination destination : destinations) {
+            if (!destination.accepts(event)) {
+                return destinations.stream().filter(candidate -> candidate.accepts(event)).toList();
+            }
+        }
+
+        return destinations;
+    }
+}
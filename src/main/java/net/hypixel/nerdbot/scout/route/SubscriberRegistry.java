@@ -0,0 +1,279 @@
+package net.hypixel.nerdbot.scout.route;
+
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.marmalade.json.DataSerialization;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+import net.hypixel.nerdbot.scout.config.ConfigFileWatcher;
+import net.hypixel.nerdbot.scout.webhook.WebhookDispatcher;
+import net.hypixel.nerdbot.scout.webhook.WebhookFanout;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Webhooks of community servers that subscribed to Scout's feeds, kept in a JSON file of {@link DestinationConfig}s.
+ * <p>
+ * Subscribers are indexed by event once whenever the registry changes, so looking up the subscribers of an event is a
+ * single map lookup. {@link #publish(String, JsonObject)} fans an event out to them through the
+ * {@link WebhookDispatcher} and removes the webhooks Discord reports as deleted, saving the file once per fan-out.
+ * <p>
+ * The file is the source of truth: it is reloaded whenever it is edited, and re-read before every change is written
+ * back, so subscribers added to it while Scout is running are never overwritten.
+ */
+@Slf4j
+public final class SubscriberRegistry implements AutoCloseable {
+
+    private static volatile SubscriberRegistry instance = new SubscriberRegistry(null, List.of());
+
+    private final Path file;
+    private volatile Index index;
+    private ConfigFileWatcher fileWatcher;
+
+    private SubscriberRegistry(Path file, List<Destination> subscribers) {
+        this.file = file;
+        this.index = Index.of(subscribers);
+        ScoutMetrics.SUBSCRIBERS.set(subscribers.size());
+    }
+
+    /**
+     * Loads the registry from the given file. A missing file is treated as an empty registry and created on the
+     * first change.
+     *
+     * @param file the registry file, or {@code null} / blank to disable subscribers
+     */
+    public static synchronized SubscriberRegistry initialize(String file) {
+        if (file == null || file.isBlank()) {
+            instance = new SubscriberRegistry(null, List.of());
+            return instance;
+        }
+
+        Path path = Path.of(file);
+        List<Destination> subscribers = load(path);
+        instance = new SubscriberRegistry(path, subscribers != null ? subscribers : List.of());
+        log.info("Loaded {} subscribers from {}", instance.size(), path);
+        return instance;
+    }
+
+    public static SubscriberRegistry getInstance() {
+        return instance;
+    }
+
+    public int size() {
+        return index.all().size();
+    }
+
+    /**
+     * Starts reloading the registry whenever its file changes.
+     */
+    public synchronized void watch() throws IOException {
+        if (file != null && fileWatcher == null) {
+            fileWatcher = ConfigFileWatcher.start(file, this::reload);
+        }
+    }
+
+    /**
+     * Re-reads the registry file. A file that cannot be read leaves the current subscribers in place.
+     */
+    public synchronized void reload() {
+        if (file == null) {
+            return;
+        }
+
+        List<Destination> subscribers = load(file);
+        if (subscribers == null || subscribers.equals(index.all())) {
+            return;
+        }
+
+        index = Index.of(subscribers);
+        ScoutMetrics.SUBSCRIBERS.set(subscribers.size());
+        log.info("Reloaded {} subscribers from {}", subscribers.size(), file);
+    }
+
+    /**
+     * @return the subscribers that receive the given event
+     */
+    public List<Destination> subscribers(String event) {
+        Index current = index;
+        return current.byEvent().getOrDefault(event, current.allEvents());
+    }
+
+    /**
+     * Adds a subscriber, replacing any existing subscription of the same webhook.
+     */
+    public synchronized void subscribe(Destination subscriber) {
+        Map<String, Destination> subscribers = byUrl();
+        subscribers.put(subscriber.webhookUrl(), subscriber);
+        replace(subscribers.values());
+    }
+
+    /**
+     * Removes the subscriptions of the given webhooks.
+     *
+     * @return the number of subscriptions removed
+     */
+    public synchronized int unsubscribe(Collection<String> webhookUrls) {
+        Map<String, Destination> subscribers = byUrl();
+        int before = subscribers.size();
+        webhookUrls.forEach(subscribers::remove);
+
+        int removed = before - subscribers.size();
+        if (removed > 0) {
+            replace(subscribers.values());
+        }
+        return removed;
+    }
+
+    /**
+     * Sends the payload to every subscriber of the event in the background. Each subscriber's role is mentioned in
+     * front of the content.
+     *
+     * @return completes once the fan-out is done and deleted webhooks have been pruned
+     */
+    public CompletableFuture<WebhookFanout.Result> publish(String event, JsonObject payload) {
+        List<Destination> subscribers = subscribers(event);
+        if (subscribers.isEmpty()) {
+            return CompletableFuture.completedFuture(WebhookFanout.Result.EMPTY);
+        }
+
+        List<WebhookFanout.Recipient> recipients = subscribers.stream()
+            .map(subscriber -> new WebhookFanout.Recipient(subscriber.webhookUrl(), subscriber.mention()))
+            .toList();
+
+        return WebhookDispatcher.getInstance().fanOut(payload, recipients).thenApply(result -> {
+            if (!result.gone().isEmpty()) {
+                int removed = unsubscribe(result.gone());
+                ScoutMetrics.SUBSCRIBERS_PRUNED.inc(removed);
+                log.info("Pruned {} deleted webhooks from the subscriber registry", removed);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
+        }
+    }
+
+    /**
+     * Returns the subscribers by webhook, as currently on disk so that edits made to the file since it was last
+     * loaded are merged into the change rather than overwritten by it.
+     */
+    private Map<String, Destination> byUrl() {
+        reload();
+
+        Map<String, Destination> subscribers = new LinkedHashMap<>();
+        index.all().forEach(subscriber -> subscribers.put(subscriber.webhookUrl(), subscriber));
+        return subscribers;
+    }
+
+    private void replace(Collection<Destination> subscribers) {
+        index = Index.of(List.copyOf(subscribers));
+        ScoutMetrics.SUBSCRIBERS.set(subscribers.size());
+        save();
+    }
+
+    /**
+     * @return the subscribers in the file, or {@code null} if it could not be read
+     */
+    private static List<Destination> load(Path path) {
+        List<DestinationConfig> configs;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            configs = DataSerialization.GSON.fromJson(reader, new TypeToken<List<DestinationConfig>>() {}.getType());
+        } catch (NoSuchFileException exception) {
+            log.debug("No subscriber registry at {}", path);
+            return List.of();
+        } catch (IOException | RuntimeException exception) {
+            log.error("Failed to read subscriber registry {}", path, exception);
+            return null;
+        }
+
+        if (configs == null) {
+            return List.of();
+        }
+
+        Map<String, Destination> subscribers = new LinkedHashMap<>();
+        for (DestinationConfig config : configs) {
+            if (config != null && config.getWebhookUrl() != null && !config.getWebhookUrl().isBlank()) {
+                subscribers.put(config.getWebhookUrl(), new Destination(config.getWebhookUrl(), config.getAlertRoleId(),
+                    config.getEvents() != null ? Set.copyOf(config.getEvents()) : null));
+            }
+        }
+        return List.copyOf(subscribers.values());
+    }
+
+    /**
+     * Writes the registry to a temporary file and moves it over the previous one, so a crash never leaves a
+     * half-written registry behind.
+     */
+    private void save() {
+        if (file == null) {
+            return;
+        }
+
+        List<DestinationConfig> configs = new ArrayList<>();
+        for (Destination subscriber : index.all()) {
+            DestinationConfig config = new DestinationConfig();
+            config.setWebhookUrl(subscriber.webhookUrl());
+            config.setAlertRoleId(subscriber.alertRoleId());
+            config.setEvents(subscriber.events().isEmpty() ? null : List.copyOf(subscriber.events()));
+            configs.add(config);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                DataSerialization.GSON.toJson(configs, writer);
+            }
+
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException exception) {
+            log.error("Failed to save subscriber registry to {}", file, exception);
+        }
+    }
+
+    /**
+     * @param byEvent   subscribers of each event that some subscriber filters on, including those receiving every event
+     * @param allEvents subscribers receiving every event, which is also the answer for events nobody filters on
+     */
+    private record Index(List<Destination> all, Map<String, List<Destination>> byEvent, List<Destination> allEvents) {
+
+        private static Index of(List<Destination> subscribers) {
+            List<Destination> allEvents = subscribers.stream().filter(subscriber -> subscriber.events().isEmpty()).toList();
+
+            Set<String> events = new HashSet<>();
+            subscribers.forEach(subscriber -> events.addAll(subscriber.events()));
+
+            Map<String, List<Destination>> byEvent = new HashMap<>();
+            for (String event : events) {
+                byEvent.put(event, subscribers.stream().filter(subscriber -> subscriber.accepts(event)).toList());
+            }
+
+            return new Index(subscribers, Map.copyOf(byEvent), allEvents);
+        }
+    }
+}
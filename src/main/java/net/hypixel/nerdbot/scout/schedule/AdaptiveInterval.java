@@ -0,0 +1,71 @@
+package net.hypixel.nerdbot.scout.schedule;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poll interval that follows how often a URL actually changes.
+ * <p>
+ * Keeps an exponentially weighted moving average of the time between detected changes. After a change the interval
+ * drops to the floor so follow-up changes (an incident update, the rest of a patch) are picked up quickly; every quiet
+ * poll then multiplies it by the backoff factor, up to a ceiling derived from the expected time until the next change
+ * and never above the configured maximum.
+ */
+public final class AdaptiveInterval {
+
+    /**
+     * Fraction of the expected time until the next change that the interval may back off to, so detection latency
+     * stays proportional to how often the URL changes.
+     */
+    private static final double EXPECTED_CHANGE_FRACTION = 0.25;
+
+    private final long minNanos;
+    private final long maxNanos;
+    private final double smoothing;
+    private final double backoffMultiplier;
+    private long currentNanos;
+    private double averageChangeNanos;
+    private long lastChangeNanos;
+
+    public AdaptiveInterval(AdaptiveIntervalConfig config) {
+        this.minNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getMinIntervalSeconds()));
+        this.maxNanos = Math.max(minNanos, TimeUnit.SECONDS.toNanos(config.getMaxIntervalSeconds()));
+        this.smoothing = Math.clamp(config.getSmoothing(), 0.01, 1.0);
+        this.backoffMultiplier = Math.max(1.0, config.getBackoffMultiplier());
+        this.currentNanos = minNanos;
+    }
+
+    public synchronized long getIntervalNanos() {
+        return currentNanos;
+    }
+
+    /**
+     * Records a detected change and returns the interval until the next poll.
+     */
+    public synchronized long recordChange(long nowNanos) {
+        if (lastChangeNanos != 0) {
+            double sample = nowNanos - lastChangeNanos;
+            averageChangeNanos = averageChangeNanos == 0
+                ? sample
+                : smoothing * sample + (1 - smoothing) * averageChangeNanos;
+        }
+
+        lastChangeNanos = nowNanos;
+        currentNanos = minNanos;
+        return currentNanos;
+    }
+
+    /**
+     * Records a poll that found no change and returns the interval until the next poll.
+     */
+    public synchronized long recordUnchanged(long nowNanos) {
+        long ceiling = maxNanos;
+        if (averageChangeNanos > 0) {
+            // A long quiet spell counts as evidence too, so an outdated short average cannot pin the interval down
+            double expected = Math.max(averageChangeNanos, nowNanos - lastChangeNanos);
+            ceiling = Math.clamp((long) (expected * EXPECTED_CHANGE_FRACTION), minNanos, maxNanos);
+        }
+
+        currentNanos = Math.min(ceiling, Math.max(currentNanos, (long) (currentNanos * backoffMultiplier)));
+        return currentNanos;
+    }
+}
@@ -0,0 +1,37 @@
+package net.hypixel.nerdbot.scout.schedule;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class AdaptiveIntervalConfig {
+
+    /**
+     * When disabled the watcher polls at its fixed {@code interval}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Floor the poll interval drops to right after a change is detected.
+     */
+    private long minIntervalSeconds = 15;
+
+    /**
+     * Ceiling the poll interval backs off to during quiet periods.
+     */
+    private long maxIntervalSeconds = 600;
+
+    /**
+     * Weight given to the newest inter-change time in the moving average, between 0 and 1.
+     * Higher values react faster to a change in rhythm.
+     */
+    private double smoothing = 0.3;
+
+    /**
+     * Factor the poll interval is multiplied by after every poll that finds no change.
+     */
+    private double backoffMultiplier = 1.5;
+}
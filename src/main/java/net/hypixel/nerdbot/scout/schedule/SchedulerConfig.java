@@ -0,0 +1,32 @@
+package net.hypixel.nerdbot.scout.schedule;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class SchedulerConfig {
+
+    /**
+     * Resolution of the timing wheel. Tasks fire on the first tick at or after their deadline.
+     */
+    private long tickMillis = 10;
+
+    /**
+     * Number of slots per wheel level. Each level covers {@code wheelSize} times the span of the level below it.
+     */
+    private int wheelSize = 512;
+
+    /**
+     * Maximum random delay added to each scheduled task, as a fraction of its delay, so that tasks with the
+     * same interval do not all fire in the same tick.
+     */
+    private double jitterRatio = 0.05;
+
+    /**
+     * Upper bound for the random delay added to each scheduled task.
+     */
+    private long maxJitterMillis = 2_000;
+}
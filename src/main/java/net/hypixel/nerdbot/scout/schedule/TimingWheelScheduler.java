@@ -0,0 +1,283 @@
+package net.hypixel.nerdbot.scout.schedule;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel shared by all watchers.
+ * <p>
+ * A single ticker thread advances the wheel; expired tasks are run on virtual threads. Scheduling and cancelling are
+ * O(1) regardless of how many tasks are pending, so tens of thousands of periodic polls cost one platform thread plus
+ * one small entry each. Every task's actual start time is compared against its intended fire time and exported as
+ * {@code scout_scheduler_lag_seconds}.
+ */
+@Slf4j
+public final class TimingWheelScheduler implements AutoCloseable {
+
+    private static final int LEVELS = 4;
+
+    private static volatile TimingWheelScheduler instance;
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final long slotMask;
+    private final double jitterRatio;
+    private final long maxJitterNanos;
+    private final List<ScheduledTask>[][] buckets;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long startNanos = System.nanoTime();
+    @Getter
+    private final ExecutorService executor;
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private long currentTick;
+    private int pendingTasks;
+
+    @SuppressWarnings("unchecked")
+    private TimingWheelScheduler(SchedulerConfig config) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getTickMillis()));
+        this.wheelBits = Math.max(2, 32 - Integer.numberOfLeadingZeros(Math.max(4, config.getWheelSize()) - 1));
+        this.slotMask = (1L << wheelBits) - 1;
+        this.jitterRatio = Math.max(0, config.getJitterRatio());
+        this.maxJitterNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getMaxJitterMillis()));
+        this.buckets = new List[LEVELS][1 << wheelBits];
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scout-worker-", 0).factory());
+        this.ticker = Thread.ofPlatform()
+            .name("scout-scheduler-ticker")
+            .daemon(true)
+            .start(this::runTicker);
+    }
+
+    /**
+     * Replaces the shared scheduler with one built from the given config. Should be called once on startup,
+     * before any watchers are started. Tasks pending on a previous scheduler are dropped.
+     */
+    public static synchronized TimingWheelScheduler initialize(SchedulerConfig config) {
+        TimingWheelScheduler previous = instance;
+        instance = new TimingWheelScheduler(config != null ? config : new SchedulerConfig());
+
+        if (previous != null) {
+            previous.close();
+        }
+
+        log.info("Scheduler initialised with config: {}", config);
+        return instance;
+    }
+
+    /**
+     * Returns the shared scheduler, creating one with default settings if {@link #initialize(SchedulerConfig)}
+     * has not been called yet.
+     */
+    public static TimingWheelScheduler getInstance() {
+        TimingWheelScheduler scheduler = instance;
+        if (scheduler == null) {
+            synchronized (TimingWheelScheduler.class) {
+                if (instance == null) {
+                    instance = new TimingWheelScheduler(new SchedulerConfig());
+                }
+                scheduler = instance;
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Runs the task on a virtual thread once the delay (plus a small random jitter) has elapsed.
+     */
+    public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        long delayNanos = unit.toNanos(Math.max(0, delay));
+        return scheduleAt(task, System.nanoTime() + delayNanos + jitterNanos(delayNanos));
+    }
+
+    /**
+     * Runs the task on a virtual thread at the given {@link System#nanoTime()} deadline, without jitter.
+     */
+    public ScheduledTask scheduleAt(Runnable task, long deadlineNanos) {
+        long deadlineTick = Math.ceilDiv(deadlineNanos - startNanos, tickNanos);
+        ScheduledTask scheduledTask = new ScheduledTask(task, deadlineNanos, deadlineTick);
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Scheduler has been shut down");
+            }
+
+            // The current tick's bucket may already have been drained
+            scheduledTask.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+            place(scheduledTask);
+            pendingTasks++;
+        } finally {
+            lock.unlock();
+        }
+
+        ScoutMetrics.SCHEDULER_PENDING_TASKS.set(pendingTasks);
+        return scheduledTask;
+    }
+
+    /**
+     * Runs the task on a virtual thread immediately.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public long jitterNanos(long delayNanos) {
+        long bound = Math.min(maxJitterNanos, (long) (delayNanos * jitterRatio));
+        return bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+        executor.shutdown();
+    }
+
+    private void runTicker() {
+        while (running) {
+            long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+            long waitNanos = nextTickNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+
+            List<ScheduledTask> due = new ArrayList<>();
+            lock.lock();
+            try {
+                long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+                while (currentTick < targetTick) {
+                    advance(due);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            ScoutMetrics.SCHEDULER_PENDING_TASKS.set(pendingTasks);
+            due.forEach(this::dispatch);
+        }
+    }
+
+    private void advance(List<ScheduledTask> due) {
+        currentTick++;
+
+        // Cascade higher levels first so their tasks can land in lower buckets drained in this same tick
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                for (ScheduledTask task : drain(level, slotOf(currentTick, level))) {
+                    if (task.cancelled) {
+                        pendingTasks--;
+                    } else {
+                        place(task);
+                    }
+                }
+            }
+        }
+
+        for (ScheduledTask task : drain(0, slotOf(currentTick, 0))) {
+            if (task.cancelled) {
+                pendingTasks--;
+            } else if (task.deadlineTick <= currentTick) {
+                pendingTasks--;
+                due.add(task);
+            } else {
+                place(task);
+            }
+        }
+    }
+
+    private void place(ScheduledTask task) {
+        long delta = Math.max(0, task.deadlineTick - currentTick);
+
+        for (int level = 0; level < LEVELS; level++) {
+            long span = 1L << (wheelBits * (level + 1));
+            if (delta < span || level == LEVELS - 1) {
+                // Deadlines beyond the top level are parked at its far edge and re-placed when cascaded
+                long targetTick = currentTick + Math.min(delta, span - 1);
+                int slot = slotOf(targetTick, level);
+                List<ScheduledTask> bucket = buckets[level][slot];
+                if (bucket == null) {
+                    bucket = new ArrayList<>();
+                    buckets[level][slot] = bucket;
+                }
+                bucket.add(task);
+                return;
+            }
+        }
+    }
+
+    private List<ScheduledTask> drain(int level, int slot) {
+        List<ScheduledTask> bucket = buckets[level][slot];
+        if (bucket == null || bucket.isEmpty()) {
+            return List.of();
+        }
+
+        buckets[level][slot] = null;
+        return bucket;
+    }
+
+    private int slotOf(long tick, int level) {
+        return (int) ((tick >>> (wheelBits * level)) & slotMask);
+    }
+
+    private void dispatch(ScheduledTask task) {
+        try {
+            executor.execute(() -> {
+                long lagNanos = System.nanoTime() - task.deadlineNanos;
+                ScoutMetrics.SCHEDULER_LAG.observe(Math.max(0, lagNanos) / 1_000_000_000.0);
+
+                if (task.cancelled) {
+                    return;
+                }
+
+                try {
+                    task.task.run();
+                } catch (Throwable throwable) {
+                    log.error("Scheduled task threw an exception", throwable);
+                }
+            });
+        } catch (Exception exception) {
+            log.warn("Failed to dispatch scheduled task: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * Handle for a task scheduled on the wheel.
+     */
+    public static final class ScheduledTask {
+
+        private final Runnable task;
+        @Getter
+        private final long deadlineNanos;
+        private long deadlineTick;
+        private volatile boolean cancelled;
+
+        private ScheduledTask(Runnable task, long deadlineNanos, long deadlineTick) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Prevents the task from running if it has not started yet. The wheel entry is discarded lazily
+         * when its bucket is next visited.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package net.hypixel.nerdbot.scout.watcher;
+
+import net.hypixel.nerdbot.marmalade.Tuple;
+import net.hypixel.nerdbot.scout.fetch.FetchedBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * A change detected by a {@link URLWatcher}, handed to {@link URLWatcher.DataHandler#handleChange(DataChange)}.
+ * <p>
+ * The previous content and the list of changed values are only materialised when a handler asks for them, and at
+ * most once, so handlers that only look at the new content never pay for decompressing the old payload or diffing it.
+ * Handlers that can parse bytes directly should use {@link #openNewContent()}, which never decodes the new content
+ * into a {@link String}. The changed values are diffed from readers over the compressed old content and the fetched
+ * body, so computing them does not decode either payload into a {@link String} either.
+ */
+public final class DataChange {
+
+    private final URLWatcher source;
+    private final Supplier<String> oldContentSupplier;
+    private final Supplier<Reader> oldReaderSupplier;
+    private final FetchedBody newBody;
+    private final ChangedValues changedValues;
+    private volatile String newContent;
+    private volatile String oldContent;
+    private volatile boolean oldContentLoaded;
+
+    /**
+     * @param oldContent the previous content, or {@code null} if there is none
+     * @param newBody    the fetched body, decoded only if a handler asks for the new content as a string
+     * @param differ     computes the changed values from readers over the old and new content, and closes them; not
+     *                   called without old content
+     */
+    DataChange(URLWatcher source, RetainedContent oldContent, FetchedBody newBody,
+               BiFunction<Reader, Reader, List<Tuple<String, Object, Object>>> differ) {
+        this(source,
+            () -> oldContent != null ? oldContent.asString() : null,
+            () -> oldContent != null ? oldContent.openReader() : null,
+            newBody, null, differ);
+    }
+
+    private DataChange(URLWatcher source, Supplier<String> oldContent, Supplier<Reader> oldReader, FetchedBody newBody,
+                       String newContent, BiFunction<Reader, Reader, List<Tuple<String, Object, Object>>> differ) {
+        this.source = source;
+        this.oldContentSupplier = oldContent;
+        this.oldReaderSupplier = oldReader;
+        this.newBody = newBody;
+        this.newContent = newContent;
+        this.changedValues = new ChangedValues(() -> {
+            Reader previous = openOldContentReader();
+            return previous == null ? List.of() : differ.apply(previous, openNewContentReader());
+        });
+    }
+
+    /**
+     * Creates a change from already materialised values, e.g. to replay a change into a handler. The change has no
+     * source watcher, so it routes nowhere.
+     */
+    public static DataChange of(String oldContent, String newContent, List<Tuple<String, Object, Object>> changedValues) {
+        return new DataChange(null, () -> oldContent, () -> oldContent != null ? new StringReader(oldContent) : null, null,
+            newContent, (previous, current) -> changedValues != null ? changedValues : List.of());
+    }
+
+    /**
+     * Returns the watcher that detected the change, which handlers resolve their destinations by, or {@code null}
+     * if the change was not detected by a watcher.
+     */
+    public URLWatcher getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the content before the change, or {@code null} if there was none or it was not retained.
+     */
+    public String getOldContent() {
+        if (!oldContentLoaded) {
+            synchronized (this) {
+                if (!oldContentLoaded) {
+                    oldContent = oldContentSupplier.get();
+                    oldContentLoaded = true;
+                }
+            }
+        }
+        return oldContent;
+    }
+
+    /**
+     * Returns the content after the change, decoding the fetched body on first use.
+     */
+    public String getNewContent() {
+        String content = newContent;
+        if (content == null && newBody != null) {
+            content = newBody.asString();
+            newContent = content;
+        }
+        return content;
+    }
+
+    /**
+     * Opens the new content as it was received, without decoding it. Each call returns an independent stream
+     * positioned at the start. Changes built from a string are re-encoded as UTF-8.
+     */
+    public InputStream openNewContent() {
+        if (newBody != null) {
+            return newBody.openStream();
+        }
+
+        String content = newContent;
+        return new ByteArrayInputStream(content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    /**
+     * Opens the old content for the diff, reusing it if a handler has already decoded it.
+     *
+     * @return a reader over the old content, or {@code null} if there is none
+     */
+    private Reader openOldContentReader() {
+        if (oldContentLoaded) {
+            return oldContent != null ? new StringReader(oldContent) : null;
+        }
+        return oldReaderSupplier.get();
+    }
+
+    private Reader openNewContentReader() {
+        String content = newContent;
+        if (content == null && newBody != null) {
+            return newBody.openReader();
+        }
+        return new StringReader(content != null ? content : "");
+    }
+
+    /**
+     * Returns a view of the values that changed. The diff is computed on first access to the list
+     * (including {@code toString()}) and then reused.
+     */
+    public List<Tuple<String, Object, Object>> getChangedValues() {
+        return changedValues;
+    }
+
+    private static final class ChangedValues extends AbstractList<Tuple<String, Object, Object>> {
+
+        private final Supplier<List<Tuple<String, Object, Object>>> supplier;
+        private volatile List<Tuple<String, Object, Object>> values;
+
+        private ChangedValues(Supplier<List<Tuple<String, Object, Object>>> supplier) {
+            this.supplier = supplier;
+        }
+
+        private List<Tuple<String, Object, Object>> values() {
+            List<Tuple<String, Object, Object>> result = values;
+            if (result == null) {
+                synchronized (this) {
+                    result = values;
+                    if (result == null) {
+                        result = List.copyOf(supplier.get());
+                        values = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Tuple<String, Object, Object> get(int index) {
+            return values().get(index);
+        }
+
+        @Override
+        public int size() {
+            return values().size();
+        }
+    }
+}
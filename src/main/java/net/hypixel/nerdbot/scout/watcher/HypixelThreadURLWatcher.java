@@ -2,11 +2,11 @@ package net.hypixel.nerdbot.scout.watcher;
 
 import lombok.extern.slf4j.Slf4j;
 import net.hypixel.nerdbot.scout.handler.update.SkyBlockUpdateDataHandler;
-import net.hypixel.nerdbot.scout.xml.SkyBlockThreadParser;
 import net.hypixel.nerdbot.scout.xml.SkyBlockThreadParser.HypixelThread;
+import net.hypixel.nerdbot.scout.xml.SkyBlockThreadStreamParser;
 
-import java.util.Comparator;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -20,8 +20,20 @@ public class HypixelThreadURLWatcher extends XmlURLWatcher {
     private final AtomicInteger lastGuid = new AtomicInteger();
     private final Consumer<HypixelThread> threadHandler;
     private volatile boolean initialised;
-    private final CompletableFuture<Void> baselineFuture;
+    private CompletableFuture<Void> baselineFuture;
     private final AtomicBoolean startScheduled = new AtomicBoolean(false);
+    private final DataHandler feedHandler = new ChangeHandler() {
+        @Override
+        public void handleChange(DataChange change) {
+            handleContent(change);
+        }
+
+        @Override
+        public boolean requiresPreviousContent() {
+            // Only the newest feed is inspected; lastGuid is the baseline
+            return false;
+        }
+    };
 
     public HypixelThreadURLWatcher(String url) {
         this(url, null, 0, null);
@@ -40,7 +52,18 @@ public class HypixelThreadURLWatcher extends XmlURLWatcher {
         this.threadHandler = threadHandler;
         this.lastGuid.set(Math.max(0, initialGuid));
         this.initialised = initialGuid > 0;
-        this.baselineFuture = this.initialised ? CompletableFuture.completedFuture(null) : seedBaseline();
+    }
+
+    @Override
+    protected void onStateRestored(long cursor) {
+        int guid = initialised ? lastGuid.get() : (int) Math.min(Integer.MAX_VALUE, cursor);
+        if (guid <= 0) {
+            // Without a GUID to continue from, a restored baseline would stop the feed from ever being seeded
+            setLastContent(null);
+        }
+
+        this.lastGuid.set(Math.max(0, guid));
+        this.initialised = guid > 0;
     }
 
     /**
@@ -58,75 +81,97 @@ public class HypixelThreadURLWatcher extends XmlURLWatcher {
             throw new IllegalStateException("Watcher for " + getUrl() + " has already been started");
         }
 
-        baselineFuture.whenComplete((ignored, throwable) -> {
+        seedBaseline().whenComplete((ignored, throwable) -> {
             if (throwable != null) {
                 log.warn("Baseline initialisation for {} encountered an error", getUrl(), throwable);
             }
 
             try {
-                super.startWatching(interval, unit, (oldContent, newContent, changedValues) -> handleContent(newContent));
+                super.startWatching(interval, unit, feedHandler);
             } catch (IllegalStateException exception) {
                 log.debug("Skipping start for {}: {}", getUrl(), exception.getMessage());
             }
         });
     }
 
+    /**
+     * Starts polling right away rather than waiting for {@link #seedBaseline()}, for callers that have already given
+     * up waiting on it. If the feed has not been seeded by then, the first poll seeds it instead of reporting threads.
+     */
+    public void startWatchingNow(long interval, TimeUnit unit) {
+        if (!startScheduled.compareAndSet(false, true)) {
+            throw new IllegalStateException("Watcher for " + getUrl() + " has already been started");
+        }
+
+        super.startWatching(interval, unit, feedHandler);
+    }
+
     public void watchOnce() {
-        baselineFuture.whenComplete((ignored, throwable) -> {
+        seedBaseline().whenComplete((ignored, throwable) -> {
             if (throwable != null) {
                 log.warn("Baseline initialisation for {} encountered an error", getUrl(), throwable);
             }
-            super.watchOnce((oldContent, newContent, changedValues) -> handleContent(newContent));
+            super.watchOnce(feedHandler);
         });
     }
 
-    private void handleContent(String newContent) {
-        List<HypixelThread> hypixelThreads = parseThreads(newContent);
-        if (hypixelThreads == null || hypixelThreads.isEmpty()) {
-            return;
-        }
+    @Override
+    protected long stateCursor() {
+        return lastGuid.get();
+    }
 
+    private void handleContent(DataChange change) {
         if (!initialised) {
-            lastGuid.set(
-                hypixelThreads.stream()
-                    .mapToInt(HypixelThread::getGuid)
-                    .max()
-                    .orElse(lastGuid.get())
-            );
-            initialised = true;
+            initialised = seedLastGuid(change.getNewContent());
             return;
         }
 
-        hypixelThreads.stream()
-            .sorted(Comparator.comparingInt(HypixelThread::getGuid))
-            .forEach(this::updateLastGuid);
+        // Parse the body as received; the feed never needs to become a String
+        try (InputStream content = change.openNewContent()) {
+            SkyBlockThreadStreamParser.parseNewThreads(content, lastGuid.get(), this::updateLastGuid);
+        } catch (IOException exception) {
+            log.warn("Failed to read forum feed from {}: {}", getUrl(), exception.getMessage());
+        }
     }
 
-    private CompletableFuture<Void> seedBaseline() {
-        return fetchContentAsync()
-            .handle((content, throwable) -> {
-                if (throwable != null) {
+    /**
+     * Seeds {@link #lastGuid} from the current feed in the background, unless a GUID was given or restored. The fetch
+     * is part of the single flight, and a poll that gets there first seeds the feed instead.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> seedBaseline() {
+        restoreState();
+        if (baselineFuture == null) {
+            baselineFuture = initialised ? CompletableFuture.completedFuture(null) : seedContentAsync(this::seedIfNeeded)
+                .exceptionally(throwable -> {
                     log.error("Failed to seed baseline for {}", getUrl(), throwable);
                     return null;
-                }
-                return content;
-            })
-            .thenAccept(content -> {
-                if (content != null) {
-                    List<HypixelThread> hypixelThreads = parseThreads(content);
-                    if (hypixelThreads != null && !hypixelThreads.isEmpty()) {
-                        lastGuid.set(
-                            hypixelThreads.stream()
-                                .mapToInt(HypixelThread::getGuid)
-                                .max()
-                                .orElse(lastGuid.get())
-                        );
-                        initialised = true;
-                        return;
-                    }
-                }
-                initialised = false;
-            });
+                });
+        }
+
+        return baselineFuture;
+    }
+
+    private void seedIfNeeded(String content) {
+        // A poll that ran first has already seeded the feed and may have reported threads since
+        if (!initialised) {
+            initialised = seedLastGuid(content);
+        }
+    }
+
+    /**
+     * Advances {@link #lastGuid} to the newest thread in the feed without dispatching anything.
+     *
+     * @return {@code true} if the feed contained at least one thread newer than the current GUID
+     */
+    private boolean seedLastGuid(String content) {
+        if (content == null || content.isBlank()) {
+            return false;
+        }
+
+        int found = SkyBlockThreadStreamParser.parseNewThreads(content, lastGuid.get(),
+            thread -> lastGuid.accumulateAndGet(thread.getGuid(), Math::max));
+        return found > 0;
     }
 
     private void updateLastGuid(HypixelThread thread) {
@@ -142,18 +187,10 @@ public class HypixelThreadURLWatcher extends XmlURLWatcher {
                 if (threadHandler != null) {
                     threadHandler.accept(thread);
                 } else {
-                    SkyBlockUpdateDataHandler.handleThread(thread);
+                    SkyBlockUpdateDataHandler.handleThread(this, thread);
                 }
                 return;
             }
         }
     }
-
-    private List<HypixelThread> parseThreads(String content) {
-        if (content == null || content.isBlank()) {
-            return null;
-        }
-
-        return SkyBlockThreadParser.parseSkyBlockThreads(content);
-    }
 }
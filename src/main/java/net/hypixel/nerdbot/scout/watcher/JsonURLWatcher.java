@@ -1,13 +1,23 @@
 package net.hypixel.nerdbot.scout.watcher;
 
-import net.hypixel.nerdbot.marmalade.json.JsonUtils;
+import lombok.extern.slf4j.Slf4j;
 import net.hypixel.nerdbot.marmalade.Tuple;
+import net.hypixel.nerdbot.scout.config.WatcherConfig;
+import net.hypixel.nerdbot.scout.diff.ArrayKeys;
+import net.hypixel.nerdbot.scout.diff.JsonChange;
+import net.hypixel.nerdbot.scout.diff.JsonDiff;
 
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 public class JsonURLWatcher extends URLWatcher {
 
+    private volatile ArrayKeys arrayKeys = ArrayKeys.NONE;
+
     public JsonURLWatcher(String url) {
         super(url);
     }
@@ -21,11 +31,29 @@ public class JsonURLWatcher extends URLWatcher {
     }
 
     @Override
-    protected List<Tuple<String, Object, Object>> computeChangedValues(String oldContent, String newContent) {
-        return JsonUtils.findChangedValues(
-            JsonUtils.parseStringToMap(oldContent),
-            JsonUtils.parseStringToMap(newContent),
-            ""
-        );
+    public void configure(WatcherConfig config) {
+        super.configure(config);
+        this.arrayKeys = ArrayKeys.of(config.getArrayKeys());
+    }
+
+    /**
+     * Diffs the two payloads with {@link JsonDiff}. Paths are JSON pointers, and values are the changed
+     * {@link com.google.gson.JsonElement}s, with {@code null} standing for an added or removed member.
+     */
+    @Override
+    protected List<Tuple<String, Object, Object>> computeChangedValues(Reader oldContent, Reader newContent) {
+        List<Tuple<String, Object, Object>> changedValues = new ArrayList<>();
+
+        try (JsonDiff diff = new JsonDiff(oldContent, newContent, arrayKeys)) {
+            while (diff.hasNext()) {
+                JsonChange change = diff.next();
+                changedValues.add(change.toTuple());
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to diff JSON content from {}: {}", getUrl(), exception.getMessage());
+            return Collections.emptyList();
+        }
+
+        return changedValues;
     }
 }
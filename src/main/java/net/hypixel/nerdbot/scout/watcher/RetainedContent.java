@@ -0,0 +1,150 @@
+package net.hypixel.nerdbot.scout.watcher;
+
+import net.hypixel.nerdbot.scout.fetch.FetchedBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A previously fetched payload kept in deflated form, for watchers whose handler needs the old content
+ * when a change is detected.
+ */
+public final class RetainedContent {
+
+    private final byte[] compressed;
+    private final int length;
+
+    private RetainedContent(byte[] compressed, int length) {
+        this.compressed = compressed;
+        this.length = length;
+    }
+
+    public static RetainedContent of(String content) {
+        return of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RetainedContent of(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                output.write(chunk, 0, written);
+            }
+
+            return new RetainedContent(output.toByteArray(), content.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses a fetched body straight from its bytes, so a large (possibly memory-mapped) body never has to be
+     * decoded into a {@link String} just to be retained. Content is retained as UTF-8, so bodies in any other charset
+     * are decoded and re-encoded.
+     */
+    public static RetainedContent of(FetchedBody body) {
+        if (!StandardCharsets.UTF_8.equals(body.getCharset())) {
+            return of(body.asString());
+        }
+
+        try (InputStream input = body.openStream()) {
+            return of(input);
+        } catch (IOException exception) {
+            // Reading a fetched body never touches the network or disk
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static RetainedContent of(InputStream content) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, content.available() / 4));
+            byte[] input = new byte[8192];
+            byte[] chunk = new byte[8192];
+            long length = 0;
+
+            int read;
+            while ((read = content.read(input)) != -1) {
+                length += read;
+                deflater.setInput(input, 0, read);
+                while (!deflater.needsInput()) {
+                    output.write(chunk, 0, deflater.deflate(chunk));
+                }
+            }
+
+            deflater.finish();
+            while (!deflater.finished()) {
+                output.write(chunk, 0, deflater.deflate(chunk));
+            }
+
+            return new RetainedContent(output.toByteArray(), Math.toIntExact(length));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Wraps content that was compressed by {@link #of(byte[])} earlier, such as a copy read back from disk.
+     */
+    static RetainedContent ofCompressed(byte[] compressed, int length) {
+        return new RetainedContent(compressed, length);
+    }
+
+    byte[] getCompressed() {
+        return compressed;
+    }
+
+    public byte[] toBytes() {
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(compressed);
+            byte[] content = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                offset += inflater.inflate(content, offset, length - offset);
+            }
+            return content;
+        } catch (DataFormatException exception) {
+            throw new IllegalStateException("Retained content is corrupt", exception);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public String asString() {
+        return new String(toBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a reader that inflates the content as it is read, without holding all of it in memory.
+     */
+    public Reader openReader() {
+        return new InputStreamReader(new InflaterInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8);
+    }
+
+    public int getCompressedSize() {
+        return compressed.length;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
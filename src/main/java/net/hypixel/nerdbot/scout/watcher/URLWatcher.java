@@ -1,42 +1,86 @@
 package net.hypixel.nerdbot.scout.watcher;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.hypixel.nerdbot.marmalade.format.StringUtils;
 import net.hypixel.nerdbot.marmalade.Tuple;
 import net.hypixel.nerdbot.scout.ScoutMetrics;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.OkHttpClient;
+import net.hypixel.nerdbot.scout.config.WatcherConfig;
+import net.hypixel.nerdbot.scout.fetch.BodyReader;
+import net.hypixel.nerdbot.scout.fetch.BodyTooLargeException;
+import net.hypixel.nerdbot.scout.fetch.CircuitBreaker;
+import net.hypixel.nerdbot.scout.fetch.CircuitBreakerConfig;
+import net.hypixel.nerdbot.scout.fetch.ContentDigest;
+import net.hypixel.nerdbot.scout.fetch.FetchEngine;
+import net.hypixel.nerdbot.scout.fetch.FetchedBody;
+import net.hypixel.nerdbot.scout.fetch.HedgingConfig;
+import net.hypixel.nerdbot.scout.fetch.HttpValidators;
+import net.hypixel.nerdbot.scout.fetch.LatencyWindow;
+import net.hypixel.nerdbot.scout.schedule.AdaptiveInterval;
+import net.hypixel.nerdbot.scout.schedule.TimingWheelScheduler;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.io.Reader;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Slf4j
 public abstract class URLWatcher implements AutoCloseable {
 
     @Getter
     private final String url;
-    private final ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> scheduledTask;
-    private final OkHttpClient client;
+    private volatile TimingWheelScheduler.ScheduledTask scheduledTask;
+    private volatile long intervalNanos;
+    private long nextPollNanos;
     private final Map<String, String> headers;
     private final AtomicBoolean closed = new AtomicBoolean(false);
-    @Getter
-    @Setter
-    private String lastContent;
+    /**
+     * Set while a poll is fetching or applying its result. Ticks that arrive in the meantime only set
+     * {@link #pollRequested}, so at most one fetch per watcher is ever in flight and results are applied in order.
+     */
+    private final AtomicBoolean inFlight = new AtomicBoolean(false);
+    private final AtomicBoolean pollRequested = new AtomicBoolean(false);
+    /**
+     * Handler of the last requested poll, so a poll requested while the baseline seed holds the flight can be run
+     * once it is done.
+     */
+    private volatile DataHandler requestedHandler;
+    /**
+     * Fingerprint, validators, (optionally) compressed copy and parsed snapshot of the last content accepted by this
+     * watcher. {@code null} until a baseline has been established. Saved to the {@link WatcherStateStore} whenever it
+     * changes and restored from it by {@link #restoreState()}.
+     */
+    private volatile Baseline baseline;
+    /**
+     * Key the state of this watcher is saved under, see {@link WatcherConfig#getKey()}.
+     */
+    private volatile String stateKey;
+    private boolean stateRestored;
+    private final boolean loadInitialContent;
+    private CompletableFuture<Void> baselineSeed;
+    private final long createdNanos = System.nanoTime();
+    private volatile boolean firstPollDone;
+    private volatile boolean retainContent = true;
+    private volatile SnapshotHandler<?> snapshotHandler;
+    private volatile BodyReader bodyReader = BodyReader.DEFAULT;
+    /**
+     * Change-driven poll interval, or {@code null} to poll at the fixed interval passed to
+     * {@link #startWatching(long, TimeUnit, DataHandler)}.
+     */
+    private volatile AdaptiveInterval adaptiveInterval;
+    private volatile CircuitBreaker circuitBreaker;
+    /**
+     * Hedging settings and the recent fetch durations the hedge delay is derived from, or {@code null} when
+     * hedging is disabled.
+     */
+    private volatile HedgingConfig hedging;
+    private volatile LatencyWindow latencyWindow;
     @Getter
     private boolean active;
 
@@ -48,23 +92,164 @@ public abstract class URLWatcher implements AutoCloseable {
         this(url, headers, true);
     }
 
+    /**
+     * Creates a watcher without any network I/O. Its baseline is restored from the {@link WatcherStateStore} if one
+     * was saved, and otherwise fetched by {@link #seedBaseline()} when {@code loadInitialContent} is set.
+     */
     protected URLWatcher(String url, Map<String, String> headers, boolean loadInitialContent) {
         this.url = url;
         this.headers = headers;
-        this.client = new OkHttpClient.Builder()
-            .connectTimeout(10, TimeUnit.SECONDS)
-            .writeTimeout(10, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .build();
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
-            Thread thread = new Thread(runnable, "URLWatcher-" + sanitizeForThreadName(url));
-            thread.setDaemon(true);
-            return thread;
-        });
+        this.loadInitialContent = loadInitialContent;
+        this.circuitBreaker = new CircuitBreaker(url, new CircuitBreakerConfig());
+        this.stateKey = WatcherConfig.key(getClass().getName(), url, null);
+    }
+
+    /**
+     * Restores the baseline saved under this watcher's key, once. Happens when the watcher is configured, which is
+     * when its key is known, or otherwise before it first fetches anything.
+     */
+    protected final synchronized void restoreState() {
+        if (stateRestored) {
+            return;
+        }
+        stateRestored = true;
+
+        // A saved baseline makes the first poll detect anything that changed while we were down
+        WatcherStateStore.WatcherState state = WatcherStateStore.getInstance().load(stateKey, url);
+        if (state != null) {
+            this.baseline = new Baseline(state.digest(), state.content(), state.validators(), null);
+            log.info("Restored saved state for {}", url);
+        }
+        onStateRestored(state != null ? state.cursor() : 0);
+    }
+
+    /**
+     * Fetches the initial baseline in the background, unless one was restored or this watcher does not load initial
+     * content. Every call returns the same future. If polling starts before the baseline arrives, the first poll
+     * establishes the baseline instead and the fetched one is discarded. The seed fetch is part of the single flight,
+     * so it never runs at the same time as a poll.
+     */
+    public synchronized CompletableFuture<Void> seedBaseline() {
+        restoreState();
+        if (baselineSeed == null) {
+            baselineSeed = !loadInitialContent || baseline != null
+                ? CompletableFuture.completedFuture(null)
+                : fetchInFlight(this::applyBaseline);
+        }
+
+        return baselineSeed;
+    }
 
-        if (loadInitialContent) {
-            this.lastContent = fetchContent();
+    /**
+     * Fetches the current content in the background as part of the single flight and passes its body (or
+     * {@code null}) to {@code seeder}. If a poll is already in flight nothing is fetched, as that poll sees the content
+     * first, and {@code seeder} is not called.
+     */
+    protected CompletableFuture<Void> seedContentAsync(Consumer<String> seeder) {
+        return fetchInFlight(result -> seeder.accept(result.content()));
+    }
+
+    private CompletableFuture<Void> fetchInFlight(Consumer<FetchResult> consumer) {
+        return CompletableFuture.runAsync(() -> {
+            if (!inFlight.compareAndSet(false, true)) {
+                log.debug("A poll of {} is already in flight, leaving the baseline to it", url);
+                return;
+            }
+
+            try {
+                consumer.accept(fetch());
+            } finally {
+                inFlight.set(false);
+            }
+
+            // A tick that arrived during the seed only left a request behind, as the seed has no handler to run it with
+            DataHandler handler = requestedHandler;
+            if (handler != null && pollRequested.get() && !closed.get()) {
+                runSingleFlight(handler);
+            }
+        }, TimingWheelScheduler.getInstance().getExecutor());
+    }
+
+    private void applyBaseline(FetchResult result) {
+        if (!result.hasBody() || baseline != null) {
+            return;
         }
+
+        SnapshotHandler<?> snapshots = snapshotHandler;
+        baseline = new Baseline(
+            result.digest(),
+            keepContent() ? RetainedContent.of(result.body()) : null,
+            result.validators(),
+            snapshots != null ? parseSnapshot(snapshots, result.content()) : null
+        );
+        saveState(baseline);
+    }
+
+    /**
+     * Called once by {@link #restoreState()} with the {@link #stateCursor()} saved by a previous run, or {@code 0} if
+     * no state was restored.
+     */
+    protected void onStateRestored(long cursor) {
+    }
+
+    /**
+     * Watcher-specific position saved alongside the baseline, such as the newest forum thread seen. Read after
+     * every change has been handled.
+     */
+    protected long stateCursor() {
+        return 0;
+    }
+
+    /**
+     * Applies the per-watcher tuning options from the given config and restores the state saved for it. Called
+     * before the watcher is started.
+     */
+    public void configure(WatcherConfig config) {
+        this.stateKey = config.getKey();
+        restoreState();
+
+        this.bodyReader = new BodyReader(config.getMaxBodyBytes(), config.getSpillThresholdBytes());
+
+        if (config.getCircuitBreaker() != null) {
+            this.circuitBreaker = new CircuitBreaker(url, config.getCircuitBreaker());
+        }
+
+        if (config.getHedging() != null && config.getHedging().isEnabled()) {
+            this.latencyWindow = new LatencyWindow(config.getHedging().getSampleSize());
+            this.hedging = config.getHedging();
+        }
+
+        if (config.getAdaptiveInterval() != null && config.getAdaptiveInterval().isEnabled()) {
+            this.adaptiveInterval = new AdaptiveInterval(config.getAdaptiveInterval());
+        }
+    }
+
+    /**
+     * Returns the last content accepted by this watcher, or {@code null} if there is none or it was not retained
+     * because the handler does not need previous content.
+     */
+    public String getLastContent() {
+        Baseline current = baseline;
+        return current != null && current.content() != null ? current.content().asString() : null;
+    }
+
+    /**
+     * Replaces the content changes are detected against. Any stored validators are discarded, as they
+     * no longer describe the content held by this watcher.
+     */
+    public void setLastContent(String lastContent) {
+        if (lastContent == null) {
+            this.baseline = null;
+            return;
+        }
+
+        SnapshotHandler<?> snapshots = snapshotHandler;
+        this.baseline = new Baseline(
+            ContentDigest.of(lastContent),
+            keepContent() ? RetainedContent.of(lastContent) : null,
+            HttpValidators.NONE,
+            snapshots != null ? parseSnapshot(snapshots, lastContent) : null
+        );
     }
 
     public void startWatching(long interval, TimeUnit unit, DataHandler handler) {
@@ -72,126 +257,351 @@ public abstract class URLWatcher implements AutoCloseable {
             throw new IllegalStateException("Watcher for " + url + " has been closed");
         }
 
-        if (scheduledTask != null && !scheduledTask.isDone()) {
+        if (scheduledTask != null) {
             throw new IllegalStateException("Watcher for " + url + " is already active");
         }
 
-        scheduledTask = scheduler.scheduleAtFixedRate(() -> fetchContentAsync()
-            .thenAccept(newContent -> {
-                if (newContent != null && !newContent.equals(lastContent)) {
-                    String oldCompact = StringUtils.toOneLine(lastContent);
-                    String newCompact = StringUtils.toOneLine(newContent);
-                    log.debug("Watched {} and found changes! Old content: {} | New content: {}", url, oldCompact, newCompact);
-                    handler.handleData(
-                        lastContent,
-                        newContent,
-                        lastContent == null ? Collections.emptyList() : computeChangedValues(lastContent, newContent)
-                    );
-                    lastContent = newContent;
-                }
-            })
-            .exceptionally(throwable -> {
-                log.error("Error fetching content asynchronously from {}", url, throwable);
-                return null;
-            }), 0, unit.toMillis(interval), TimeUnit.MILLISECONDS);
+        restoreState();
+        configureRetention(handler);
+
+        intervalNanos = unit.toNanos(interval);
+        nextPollNanos = System.nanoTime();
+        scheduledTask = TimingWheelScheduler.getInstance().scheduleAt(() -> poll(handler), nextPollNanos);
+        ScoutMetrics.WATCHER_POLL_INTERVAL.labels(url).set(intervalNanos / 1_000_000_000.0);
 
-        log.info("Started watching {}", url);
+        log.info("Started watching {}{}", url, adaptiveInterval != null ? " (adaptive interval)" : "");
         active = true;
         ScoutMetrics.WATCHERS_ACTIVE.inc();
     }
 
+    /**
+     * Changes the fixed poll interval of a running watcher. The poll that is already scheduled keeps its time; the
+     * new interval applies from the one after it. Has no effect on an adaptive interval.
+     */
+    public void setInterval(long interval, TimeUnit unit) {
+        intervalNanos = unit.toNanos(interval);
+        if (adaptiveInterval == null && scheduledTask != null) {
+            ScoutMetrics.WATCHER_POLL_INTERVAL.labels(url).set(intervalNanos / 1_000_000_000.0);
+        }
+        log.info("Poll interval of {} changed to {} {}", url, interval, unit);
+    }
+
     public void watchOnce(DataHandler handler) {
         active = true;
+        restoreState();
+        configureRetention(handler);
 
-        fetchContentAsync()
-            .thenAccept(newContent -> {
-                if (newContent != null && !newContent.equals(lastContent)) {
-                    handler.handleData(
-                        lastContent,
-                        newContent,
-                        lastContent == null ? Collections.emptyList() : computeChangedValues(lastContent, newContent)
-                    );
-                    lastContent = newContent;
-                    String oldCompact = StringUtils.toOneLine(lastContent);
-                    String newCompact = StringUtils.toOneLine(newContent);
-                    log.debug("Watched {} once, found changes! Old content: {} | New content: {}", url, oldCompact, newCompact);
-                }
+        TimingWheelScheduler.getInstance().execute(() -> {
+            try {
+                runSingleFlight(handler);
+            } finally {
                 active = false;
-            })
-            .exceptionally(throwable -> {
-                log.error("Error fetching content asynchronously from " + url, throwable);
-                active = false;
-                return null;
-            });
+            }
+        });
     }
 
-    public void stopWatching() {
-        if (!closed.compareAndSet(false, true)) {
+    /**
+     * Runs one scheduled poll on a virtual thread. With a fixed interval the next poll is armed first, at a fixed rate
+     * from the previous intended fire time, so a slow fetch does not delay the schedule. With an adaptive interval the
+     * next poll can only be armed once this one has shown whether the content changed.
+     */
+    private void poll(DataHandler handler) {
+        if (closed.get()) {
             return;
         }
 
-        if (scheduledTask != null) {
-            scheduledTask.cancel(true);
-            scheduledTask = null;
+        AdaptiveInterval adaptive = adaptiveInterval;
+        if (adaptive == null) {
+            long now = System.nanoTime();
+            long interval = intervalNanos;
+            nextPollNanos += interval;
+            if (nextPollNanos < now) {
+                // Fell behind by more than an interval; resume from now instead of firing a burst of catch-up polls
+                nextPollNanos = now;
+            }
+            scheduleNextPoll(handler, nextPollNanos, interval);
+            runSingleFlight(handler);
+            return;
         }
 
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                log.warn("Scheduler for {} did not terminate gracefully, forcing shutdown", url);
-                scheduler.shutdownNow();
+        runSingleFlight(handler);
+
+        long delayNanos = adaptive.getIntervalNanos();
+        ScoutMetrics.WATCHER_POLL_INTERVAL.labels(url).set(delayNanos / 1_000_000_000.0);
+        scheduleNextPoll(handler, System.nanoTime() + delayNanos, delayNanos);
+    }
+
+    private void scheduleNextPoll(DataHandler handler, long deadlineNanos, long delayNanos) {
+        if (closed.get()) {
+            return;
+        }
+
+        TimingWheelScheduler scheduler = TimingWheelScheduler.getInstance();
+        scheduledTask = scheduler.scheduleAt(() -> poll(handler), deadlineNanos + scheduler.jitterNanos(delayNanos));
+    }
+
+    /**
+     * Fetches and applies the current content unless a fetch is already in flight. A request that lands while one
+     * is running is coalesced into a single follow-up poll, started by the thread that owns the flight once it is
+     * done.
+     */
+    private void runSingleFlight(DataHandler handler) {
+        requestedHandler = handler;
+        pollRequested.set(true);
+        boolean ran = false;
+
+        while (pollRequested.get() && inFlight.compareAndSet(false, true)) {
+            ran = true;
+            CircuitBreaker breaker = circuitBreaker;
+            boolean acquired = false;
+            FetchResult result = null;
+            try {
+                pollRequested.set(false);
+
+                acquired = breaker.tryAcquire();
+                if (acquired) {
+                    result = fetch();
+                    applyResult(result, handler);
+                } else {
+                    ScoutMetrics.URL_FETCHES.labels(url, "circuit_open").inc();
+                    log.debug("Circuit for {} is open, skipping poll", url);
+                }
+            } catch (Exception exception) {
+                if (acquired && result == null) {
+                    // The fetch failed without recording an outcome, which would leave a half-open circuit waiting on
+                    // its probe forever
+                    breaker.recordFailure(0);
+                }
+                log.error("Error fetching content from {}", url, exception);
+            } finally {
+                inFlight.set(false);
+            }
+
+            if (closed.get()) {
+                return;
             }
-        } catch (InterruptedException exception) {
-            log.warn("Interrupted while waiting for scheduler termination for {}", url);
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
         }
 
-        ScoutMetrics.WATCHERS_ACTIVE.dec();
+        if (!ran) {
+            ScoutMetrics.WATCHER_TICKS_SKIPPED.labels(url).inc();
+            log.debug("Previous fetch from {} is still running, coalescing tick", url);
+        } else if (!firstPollDone) {
+            firstPollDone = true;
+            ScoutMetrics.WATCHER_TIME_TO_FIRST_POLL.labels(url).set((System.nanoTime() - createdNanos) / 1_000_000_000.0);
+        }
+    }
+
+    public void stopWatching() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        // A watcher can be closed before its baseline was seeded and it ever started
+        TimingWheelScheduler.ScheduledTask task = scheduledTask;
+        if (task != null) {
+            task.cancel();
+            ScoutMetrics.WATCHERS_ACTIVE.dec();
+        }
+
         active = false;
         log.info("Stopped watching {}", url);
     }
 
+    /**
+     * Fetches the current content synchronously.
+     *
+     * @return the content, or {@code null} if it could not be fetched or has not been modified since the last
+     * content accepted by this watcher
+     */
     public String fetchContent() {
-        log.debug("Fetching content from " + url);
+        return fetch().content();
+    }
 
-        Request.Builder requestBuilder = new Request.Builder().url(url);
+    /**
+     * Fetches the current content asynchronously. The future completes with {@code null} if the content could not be
+     * fetched or has not been modified since the last content accepted by this watcher.
+     */
+    public CompletableFuture<String> fetchContentAsync() {
+        return CompletableFuture.supplyAsync(this::fetch, TimingWheelScheduler.getInstance().getExecutor())
+            .thenApply(FetchResult::content);
+    }
 
-        if (headers != null) {
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                requestBuilder.header(entry.getKey(), entry.getValue());
+    private void configureRetention(DataHandler handler) {
+        retainContent = handler.requiresPreviousContent();
+        snapshotHandler = handler instanceof SnapshotHandler<?> snapshots ? snapshots : null;
+
+        Baseline current = baseline;
+        if (current == null) {
+            return;
+        }
+
+        // Parse a baseline loaded before the handler was known while its content is still at hand
+        Object snapshot = current.snapshot();
+        if (snapshot == null && snapshotHandler != null && current.content() != null) {
+            snapshot = parseSnapshot(snapshotHandler, current.content().asString());
+        }
+
+        baseline = new Baseline(current.digest(), keepContent() ? current.content() : null, current.validators(), snapshot);
+    }
+
+    /**
+     * Whether the baseline keeps a compressed copy of the content: when the handler needs it, or when the content is
+     * needed to rebuild the handler's snapshot after a restart.
+     */
+    private boolean keepContent() {
+        return retainContent || (snapshotHandler != null && WatcherStateStore.getInstance().isEnabled());
+    }
+
+    private void saveState(Baseline state) {
+        // A watcher restarted by a reload saves under the same key; a poll still finishing here must not overwrite it
+        if (closed.get()) {
+            return;
+        }
+
+        WatcherStateStore store = WatcherStateStore.getInstance();
+        if (store.isEnabled()) {
+            store.save(stateKey, url, new WatcherStateStore.WatcherState(state.digest(), state.validators(), state.content(), stateCursor()));
+        }
+    }
+
+    /**
+     * Compares a fetch result against the current baseline by digest and dispatches it to the handler if it changed.
+     * The baseline (including validators) is only replaced once the handler has returned, so a handler failure
+     * causes the change to be retried on the next poll rather than being masked by a 304.
+     */
+    private void applyResult(FetchResult result, DataHandler handler) {
+        if (closed.get()) {
+            return;
+        }
+
+        AdaptiveInterval adaptive = adaptiveInterval;
+
+        if (!result.hasBody()) {
+            if (adaptive != null) {
+                adaptive.recordUnchanged(System.nanoTime());
             }
+            return;
+        }
+
+        Baseline previous = baseline;
+        if (previous != null && previous.digest() == result.digest()) {
+            if (!previous.validators().equals(result.validators())) {
+                baseline = new Baseline(previous.digest(), previous.content(), result.validators(), previous.snapshot());
+                saveState(baseline);
+            }
+            if (adaptive != null) {
+                adaptive.recordUnchanged(System.nanoTime());
+            }
+            return;
+        }
+
+        RetainedContent previousContent = previous != null ? previous.content() : null;
+
+        if (log.isDebugEnabled()) {
+            log.debug("Watched {} and found changes! Old digest: {} | New digest: {} | New content: {}",
+                url,
+                previous != null ? Long.toHexString(previous.digest()) : null,
+                Long.toHexString(result.digest()),
+                StringUtils.toOneLine(result.content()));
+        }
+
+        DataChange change = new DataChange(this, previousContent, result.body(), this::computeChangedValues);
+        Object snapshot = null;
+        if (handler instanceof SnapshotHandler<?> snapshots) {
+            snapshot = dispatchSnapshot(snapshots, previous, change);
+        } else {
+            handler.handleChange(change);
+        }
+
+        baseline = new Baseline(
+            result.digest(),
+            keepContent() ? RetainedContent.of(result.body()) : null,
+            result.validators(),
+            snapshot
+        );
+        saveState(baseline);
+
+        // The first content seen only establishes the baseline and says nothing about the change rate
+        if (adaptive != null && previous != null) {
+            adaptive.recordChange(System.nanoTime());
+        }
+    }
+
+    /**
+     * Hands the cached snapshot of the previous content and a freshly parsed one of the new content to the handler.
+     * The previous content is only parsed if no snapshot of it is cached.
+     *
+     * @return the new snapshot, to be cached for the next change
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T dispatchSnapshot(SnapshotHandler<T> handler, Baseline previous, DataChange change) {
+        T oldSnapshot = previous != null ? (T) previous.snapshot() : null;
+        if (oldSnapshot == null && previous != null && previous.content() != null) {
+            oldSnapshot = parseSnapshot(handler, change.getOldContent());
         }
 
-        Request request = requestBuilder.build();
+        T newSnapshot = parseSnapshot(handler, change.getNewContent());
+        handler.handleSnapshot(oldSnapshot, newSnapshot, change);
+        return newSnapshot;
+    }
+
+    private <T> T parseSnapshot(SnapshotHandler<T> handler, String content) {
+        if (content == null) {
+            return null;
+        }
+
+        try {
+            return handler.parseSnapshot(content);
+        } catch (RuntimeException exception) {
+            log.warn("Failed to parse snapshot of content from {}: {}", url, exception.getMessage());
+            return null;
+        }
+    }
+
+    private FetchResult fetch() {
+        log.debug("Fetching content from " + url);
+
+        Request request = buildRequest();
         long startNanos = System.nanoTime();
 
-        try (Response response = client.newCall(request).execute()) {
-            double durationSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
-            ScoutMetrics.URL_FETCH_DURATION.labels(url).observe(durationSeconds);
+        FetchEngine.ResponseReader<Attempt> reader = response -> readResponse(response, startNanos);
 
-            if (response.isSuccessful()) {
-                String content = response.body().string();
-                ScoutMetrics.URL_FETCHES.labels(url, "success").inc();
-                log.debug("Successfully fetched content from {}! (Content: {})", url, StringUtils.toOneLine(content));
-                return content;
-            } else {
-                ScoutMetrics.URL_FETCHES.labels(url, "failure").inc();
-                log.error("Failed to fetch content from " + url + "! (Response: " + response + ")");
+        try {
+            LatencyWindow window = latencyWindow;
+            long hedgeDelayNanos = hedgeDelayNanos(window);
+            Attempt attempt = hedgeDelayNanos > 0
+                ? FetchEngine.getInstance().executeHedged(url, request, reader, hedgeDelayNanos)
+                : FetchEngine.getInstance().execute(request, reader);
+
+            if (window != null) {
+                window.record(System.nanoTime() - startNanos);
             }
+            return accept(attempt);
         } catch (IOException exception) {
             double durationSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
             ScoutMetrics.URL_FETCH_DURATION.labels(url).observe(durationSeconds);
             ScoutMetrics.URL_FETCHES.labels(url, "error").inc();
-            log.error("Failed to fetch content from " + url + "!", exception);
+            circuitBreaker.recordFailure(0);
+            log.warn("Failed to fetch content from {}: {}", url, exception.toString());
         }
 
-        return null;
+        return FetchResult.EMPTY;
     }
 
-    public CompletableFuture<String> fetchContentAsync() {
-        log.debug("Fetching content asynchronously from " + url);
+    /**
+     * Returns how long to wait for a response before hedging, or {@code 0} if this fetch should not be hedged.
+     * Nothing is hedged until enough durations have been seen to make the percentile meaningful.
+     */
+    private long hedgeDelayNanos(LatencyWindow window) {
+        HedgingConfig config = hedging;
+        if (config == null || window == null || window.size() < Math.max(1, window.capacity() / 4)) {
+            return 0;
+        }
 
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(config.getMinDelayMillis()), window.percentile(config.getPercentile()));
+    }
+
+    private Request buildRequest() {
         Request.Builder requestBuilder = new Request.Builder().url(url);
 
         if (headers != null) {
@@ -200,49 +610,171 @@ public abstract class URLWatcher implements AutoCloseable {
             }
         }
 
-        Request request = requestBuilder.build();
-        CompletableFuture<String> future = new CompletableFuture<>();
-        long startNanos = System.nanoTime();
+        // Only send validators when we still hold a baseline for the content they describe
+        Baseline current = baseline;
+        if (current != null) {
+            current.validators().applyTo(requestBuilder);
+        }
 
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                double durationSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
-                ScoutMetrics.URL_FETCH_DURATION.labels(url).observe(durationSeconds);
-                ScoutMetrics.URL_FETCHES.labels(url, "error").inc();
-                log.error("Failed to fetch content asynchronously from " + url, e);
-                future.complete(null);
-            }
+        return requestBuilder.build();
+    }
 
-            @Override
-            public void onResponse(@NotNull Call call, @NotNull Response response) {
-                double durationSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
-                ScoutMetrics.URL_FETCH_DURATION.labels(url).observe(durationSeconds);
-
-                try (response) {
-                    if (response.isSuccessful()) {
-                        ScoutMetrics.URL_FETCHES.labels(url, "success").inc();
-                        String content = response.body().string();
-                        log.debug("Successfully fetched content asynchronously from {}! (Content: {})", url, StringUtils.toOneLine(content));
-                        future.complete(content);
-                    } else {
-                        ScoutMetrics.URL_FETCHES.labels(url, "failure").inc();
-                        log.error("Failed to fetch content asynchronously from " + url + "! (Response: " + response + ")");
-                        future.complete(null);
-                    }
-                } catch (IOException e) {
-                    ScoutMetrics.URL_FETCHES.labels(url, "error").inc();
-                    log.error("Error reading response body from " + url, e);
-                    future.complete(null);
-                }
-            }
-        });
+    /**
+     * Reads a response without recording anything, as a hedged fetch may read two responses and only one of them
+     * counts. See {@link #accept(Attempt)}.
+     */
+    private Attempt readResponse(Response response, long startNanos) throws IOException {
+        long durationNanos = System.nanoTime() - startNanos;
+
+        if (response.code() == 304) {
+            return new Attempt(FetchResult.EMPTY, response.code(), 0, durationNanos, false);
+        }
+
+        if (!response.isSuccessful()) {
+            long retryAfterNanos = response.code() == 429 || response.code() == 503
+                ? CircuitBreaker.parseRetryAfterNanos(response.header("Retry-After"))
+                : 0;
+            return new Attempt(FetchResult.EMPTY, response.code(), retryAfterNanos, durationNanos, false);
+        }
 
-        return future;
+        FetchedBody body;
+        try {
+            body = bodyReader.read(url, response.body());
+        } catch (BodyTooLargeException exception) {
+            log.debug(exception.getMessage());
+            return new Attempt(FetchResult.EMPTY, response.code(), 0, durationNanos, true);
+        }
+
+        return new Attempt(new FetchResult(body, HttpValidators.from(response)), response.code(), 0, durationNanos, false);
+    }
+
+    /**
+     * Records the outcome of the attempt that answered a fetch in the metrics and the circuit breaker.
+     */
+    private FetchResult accept(Attempt attempt) {
+        // Metrics of a stopped watcher's URL may already have been removed
+        if (closed.get()) {
+            return attempt.result();
+        }
+
+        ScoutMetrics.URL_FETCH_DURATION.labels(url).observe(attempt.durationNanos() / 1_000_000_000.0);
+
+        if (attempt.code() == 304) {
+            circuitBreaker.recordSuccess();
+            ScoutMetrics.URL_FETCHES.labels(url, "not_modified").inc();
+            log.debug("Content from {} not modified since last fetch", url);
+            return attempt.result();
+        }
+
+        if (attempt.code() < 200 || attempt.code() >= 300) {
+            ScoutMetrics.URL_FETCHES.labels(url, "failure").inc();
+            circuitBreaker.recordFailure(attempt.retryAfterNanos());
+            log.warn("Failed to fetch content from {} (HTTP {})", url, attempt.code());
+            return attempt.result();
+        }
+
+        // A body cut off at the size limit is no more use than no response at all
+        if (attempt.tooLarge()) {
+            ScoutMetrics.URL_FETCHES.labels(url, "too_large").inc();
+            circuitBreaker.recordFailure(0);
+            log.warn("Failed to fetch content from {}: response body exceeded limit of {} bytes", url, bodyReader.getMaxBytes());
+            return attempt.result();
+        }
+
+        circuitBreaker.recordSuccess();
+
+        FetchResult result = attempt.result();
+        if (result.hasBody()) {
+            ScoutMetrics.URL_FETCH_BYTES.labels(url).inc(result.body().getLength());
+            ScoutMetrics.URL_FETCHES.labels(url, "success").inc();
+            log.debug("Successfully fetched {} bytes from {} (digest: {}, spilled: {})",
+                result.body().getLength(), url, Long.toHexString(result.digest()), result.body().isSpilled());
+        }
+        return result;
     }
 
     public interface DataHandler {
         void handleData(String oldContent, String newContent, List<Tuple<String, Object, Object>> changedValues);
+
+        /**
+         * Entry point used by watchers. Passes the change on to {@link #handleData}; {@code changedValues} is a lazy
+         * view, so a handler that never reads it does not trigger a diff.
+         */
+        default void handleChange(DataChange change) {
+            handleData(change.getOldContent(), change.getNewContent(), change.getChangedValues());
+        }
+
+        /**
+         * Whether this handler uses {@code oldContent} or {@code changedValues}. Watchers only keep a compressed
+         * copy of the previous payload for handlers that need it; for all others, changes are detected by digest
+         * alone and {@code oldContent} is passed as {@code null} with empty {@code changedValues}.
+         */
+        default boolean requiresPreviousContent() {
+            return true;
+        }
+
+        /**
+         * Applies the config of the watcher this handler was created for. Called once, before watching starts.
+         */
+        default void configure(WatcherConfig config) {
+        }
+    }
+
+    /**
+     * Handler that receives the {@link DataChange} directly and pulls the old content or changed values only
+     * if it needs them.
+     */
+    @FunctionalInterface
+    public interface ChangeHandler extends DataHandler {
+        @Override
+        void handleChange(DataChange change);
+
+        @Override
+        default void handleData(String oldContent, String newContent, List<Tuple<String, Object, Object>> changedValues) {
+            handleChange(DataChange.of(oldContent, newContent, changedValues));
+        }
+    }
+
+    /**
+     * Handler that works on a parsed model of the content. Watchers cache the snapshot parsed from each accepted
+     * payload and hand it back as {@code oldSnapshot} on the next change, so every payload is parsed exactly once.
+     * Snapshots are shared between calls and must be treated as immutable.
+     *
+     * @param <T> the snapshot type
+     */
+    public interface SnapshotHandler<T> extends DataHandler {
+
+        /**
+         * Parses a payload into a snapshot.
+         *
+         * @return the snapshot, or {@code null} if the payload cannot be used
+         */
+        T parseSnapshot(String content);
+
+        /**
+         * @param oldSnapshot snapshot of the previous content, or {@code null} if there was none or it could not be parsed
+         * @param newSnapshot snapshot of the new content, or {@code null} if it could not be parsed
+         */
+        void handleSnapshot(T oldSnapshot, T newSnapshot, DataChange change);
+
+        @Override
+        default void handleChange(DataChange change) {
+            String oldContent = change.getOldContent();
+            handleSnapshot(oldContent != null ? parseSnapshot(oldContent) : null, parseSnapshot(change.getNewContent()), change);
+        }
+
+        @Override
+        default void handleData(String oldContent, String newContent, List<Tuple<String, Object, Object>> changedValues) {
+            handleChange(DataChange.of(oldContent, newContent, changedValues));
+        }
+
+        /**
+         * The cached snapshot replaces the previous payload, so only keep it if the handler overrides this.
+         */
+        @Override
+        default boolean requiresPreviousContent() {
+            return false;
+        }
     }
 
     @Override
@@ -250,9 +782,41 @@ public abstract class URLWatcher implements AutoCloseable {
         stopWatching();
     }
 
-    private static String sanitizeForThreadName(String url) {
-        return url.replaceAll("[^a-zA-Z0-9_-]", "_");
+    private record Baseline(long digest, RetainedContent content, HttpValidators validators, Object snapshot) {
+    }
+
+    /**
+     * A response read by one attempt of a fetch.
+     *
+     * @param durationNanos time from the start of the fetch until the response arrived
+     * @param tooLarge whether the body was abandoned for exceeding the size limit
+     */
+    private record Attempt(FetchResult result, int code, long retryAfterNanos, long durationNanos, boolean tooLarge) {
+    }
+
+    private record FetchResult(FetchedBody body, HttpValidators validators) {
+        private static final FetchResult EMPTY = new FetchResult(null, HttpValidators.NONE);
+
+        private boolean hasBody() {
+            return body != null;
+        }
+
+        private long digest() {
+            return body.getDigest();
+        }
+
+        /**
+         * Decodes the body on first use, so unchanged content never has to be turned into a {@link String}.
+         */
+        private String content() {
+            return body != null ? body.asString() : null;
+        }
     }
 
-    protected abstract List<Tuple<String, Object, Object>> computeChangedValues(String oldContent, String newContent);
+    /**
+     * Computes the values that changed between two payloads. Called at most once per change, and only if a handler
+     * asks for the changed values. Both readers are over content already in memory and should be closed by an
+     * implementation that reads them.
+     */
+    protected abstract List<Tuple<String, Object, Object>> computeChangedValues(Reader oldContent, Reader newContent);
 }
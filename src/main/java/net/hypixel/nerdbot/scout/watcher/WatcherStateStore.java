@@ -0,0 +1,238 @@
+package net.hypixel.nerdbot.scout.watcher;
+
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.fetch.ContentDigest;
+import net.hypixel.nerdbot.scout.fetch.HttpValidators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps the baseline of every watcher on disk, so a restarted watcher can pick up where it left off without fetching
+ * anything and changes made while Scout was down are still detected on its first poll.
+ * <p>
+ * Each watcher's state lives in its own small binary file, named after a digest of its
+ * {@link net.hypixel.nerdbot.scout.config.WatcherConfig#getKey() key} rather than its URL, as several watchers can
+ * watch the same URL. A state is written to a
+ * temporary file, forced to disk and moved over the previous one, so a crash mid-write leaves the last complete state
+ * in place. Files are checksummed, and a state that cannot be read is ignored rather than trusted.
+ */
+@Slf4j
+public final class WatcherStateStore {
+
+    private static final int MAGIC = 0x53435753;
+    private static final byte VERSION = 1;
+    private static final String SUFFIX = ".state";
+
+    private static volatile WatcherStateStore instance = new WatcherStateStore(null);
+
+    private final Path directory;
+
+    private WatcherStateStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the directory watcher state is kept in. Must be called before any watcher is created.
+     *
+     * @param directory the state directory, or {@code null} / blank to keep state in memory only
+     */
+    public static synchronized WatcherStateStore initialize(String directory) {
+        if (directory == null || directory.isBlank()) {
+            log.warn("Watcher state store disabled, watchers will fetch a fresh baseline on every start");
+            instance = new WatcherStateStore(null);
+            return instance;
+        }
+
+        Path path = Path.of(directory);
+        try {
+            Files.createDirectories(path);
+            instance = new WatcherStateStore(path);
+            log.info("Keeping watcher state in {}", path.toAbsolutePath());
+        } catch (IOException exception) {
+            log.error("Failed to create watcher state directory {}, continuing without it", path, exception);
+            instance = new WatcherStateStore(null);
+        }
+
+        return instance;
+    }
+
+    public static WatcherStateStore getInstance() {
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * @return the last state saved for the watcher, or {@code null} if there is none or it could not be read
+     */
+    WatcherState load(String key, String url) {
+        if (directory == null) {
+            return null;
+        }
+
+        Path file = fileFor(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (IOException exception) {
+            log.warn("Failed to read watcher state for {}: {}", url, exception.getMessage());
+            return null;
+        }
+
+        try {
+            return decode(url, bytes);
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Ignoring unreadable watcher state for {} in {}: {}", url, file, exception.getMessage());
+            return null;
+        }
+    }
+
+    void save(String key, String url, WatcherState state) {
+        if (directory == null) {
+            return;
+        }
+
+        Path file = fileFor(key);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try {
+            byte[] bytes = encode(url, state);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException exception) {
+            log.warn("Failed to save watcher state for {}: {}", url, exception.getMessage());
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(String.format("%016x", ContentDigest.of(key)) + SUFFIX);
+    }
+
+    private static byte[] encode(String url, WatcherState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (state.content() != null ? state.content().getCompressedSize() : 0));
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        writeString(output, url);
+        output.writeLong(state.digest());
+        writeString(output, state.validators().etag());
+        writeString(output, state.validators().lastModified());
+        output.writeLong(state.cursor());
+
+        RetainedContent content = state.content();
+        if (content != null) {
+            output.writeInt(content.getLength());
+            output.writeInt(content.getCompressedSize());
+            output.write(content.getCompressed());
+        } else {
+            output.writeInt(-1);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        output.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    private static WatcherState decode(String url, byte[] bytes) throws IOException {
+        if (bytes.length < Integer.BYTES * 2) {
+            throw new IOException("file is truncated");
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - Integer.BYTES, Integer.BYTES).getInt()) {
+            throw new IOException("checksum mismatch");
+        }
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Integer.BYTES));
+        if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+            throw new IOException("unsupported format");
+        }
+
+        if (!url.equals(readString(input))) {
+            throw new IOException("state belongs to a different URL");
+        }
+
+        long digest = input.readLong();
+        String etag = readString(input);
+        String lastModified = readString(input);
+        long cursor = input.readLong();
+
+        RetainedContent content = null;
+        int length = input.readInt();
+        if (length >= 0) {
+            byte[] compressed = new byte[input.readInt()];
+            input.readFully(compressed);
+            content = RetainedContent.ofCompressed(compressed, length);
+        }
+
+        HttpValidators validators = etag == null && lastModified == null ? HttpValidators.NONE : new HttpValidators(etag, lastModified);
+        return new WatcherState(digest, validators, content, cursor);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The persisted baseline of a watcher.
+     *
+     * @param digest     digest of the last accepted content
+     * @param validators validators the server returned with that content
+     * @param content    compressed copy of the content, or {@code null} if the watcher's handler needs neither the
+     *                   previous content nor a snapshot of it
+     * @param cursor     watcher-specific position, such as the newest forum thread GUID seen
+     */
+    record WatcherState(long digest, HttpValidators validators, RetainedContent content, long cursor) {
+    }
+}
@@ -2,6 +2,7 @@ package net.hypixel.nerdbot.scout.watcher;
 
 import net.hypixel.nerdbot.marmalade.Tuple;
 
+import java.io.Reader;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -21,7 +22,7 @@ public class XmlURLWatcher extends URLWatcher {
     }
 
     @Override
-    protected List<Tuple<String, Object, Object>> computeChangedValues(String oldContent, String newContent) {
+    protected List<Tuple<String, Object, Object>> computeChangedValues(Reader oldContent, Reader newContent) {
         return Collections.emptyList();
     }
 }
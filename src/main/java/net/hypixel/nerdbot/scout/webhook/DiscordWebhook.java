@@ -2,39 +2,32 @@ package net.hypixel.nerdbot.scout.webhook;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import lombok.extern.slf4j.Slf4j;
-import net.hypixel.nerdbot.scout.ScoutMetrics;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
-
-import java.io.IOException;
+
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
-@Slf4j
+/**
+ * Builds Discord webhook payloads and hands them to the {@link WebhookDispatcher}. Sending never blocks the caller.
+ */
 public class DiscordWebhook {
 
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
-    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
-        .connectTimeout(10, TimeUnit.SECONDS)
-        .writeTimeout(10, TimeUnit.SECONDS)
-        .readTimeout(30, TimeUnit.SECONDS)
-        .build();
-
     private DiscordWebhook() {
     }
 
     /**
-     * Sends a message with embeds to a Discord webhook URL.
+     * Queues a message with embeds for a Discord webhook URL.
      *
      * @param webhookUrl the full Discord webhook URL
      * @param content    optional text content (can be null)
      * @param embeds     list of embed JSON objects
      */
     public static void send(String webhookUrl, String content, List<JsonObject> embeds) {
+        sendPayload(webhookUrl, createPayload(content, embeds));
+    }
+
+    /**
+     * Creates a webhook payload with optional text content and embeds.
+     */
+    public static JsonObject createPayload(String content, List<JsonObject> embeds) {
         JsonObject payload = new JsonObject();
 
         if (content != null && !content.isBlank()) {
@@ -47,11 +40,11 @@ public class DiscordWebhook {
             payload.add("embeds", embedArray);
         }
 
-        sendPayload(webhookUrl, payload);
+        return payload;
     }
 
     /**
-     * Sends a simple text message to a Discord webhook URL.
+     * Queues a simple text message for a Discord webhook URL.
      *
      * @param webhookUrl the full Discord webhook URL
      * @param content    text content to send
@@ -106,23 +99,6 @@ public class DiscordWebhook {
     }
 
     private static void sendPayload(String webhookUrl, JsonObject payload) {
-        RequestBody body = RequestBody.create(payload.toString(), JSON);
-        Request request = new Request.Builder()
-            .url(webhookUrl)
-            .post(body)
-            .build();
-
-        try (Response response = CLIENT.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                ScoutMetrics.WEBHOOKS_SENT.labels("failure").inc();
-                log.error("Failed to send webhook to {}: HTTP {} - {}", webhookUrl, response.code(), response.message());
-            } else {
-                ScoutMetrics.WEBHOOKS_SENT.labels("success").inc();
-                log.debug("Successfully sent webhook to {}", webhookUrl);
-            }
-        } catch (IOException e) {
-            ScoutMetrics.WEBHOOKS_SENT.labels("error").inc();
-            log.error("Failed to send webhook to {}", webhookUrl, e);
-        }
+        WebhookDispatcher.getInstance().submit(webhookUrl, payload);
     }
 }
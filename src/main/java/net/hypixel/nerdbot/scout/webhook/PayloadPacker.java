@@ -0,0 +1,350 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits webhook payloads to Discord's message limits.
+ * <p>
+ * {@link #split(JsonObject)} turns one payload into the fewest messages that are each within the limits, keeping the
+ * order of its content and embeds: over-long content is split into several messages, over-long embed text is
+ * truncated, embeds with too many fields or characters are continued in further embeds, and embeds are packed
+ * greedily into as few messages as possible.
+ * {@link #merge(JsonObject, JsonObject)} goes the other way and combines two small messages into one when the result
+ * is still valid.
+ */
+public final class PayloadPacker {
+
+    public static final int MAX_CONTENT_LENGTH = 2_000;
+    public static final int MAX_EMBEDS = 10;
+    public static final int MAX_FIELDS = 25;
+    public static final int MAX_TOTAL_EMBED_LENGTH = 6_000;
+    public static final int MAX_TITLE_LENGTH = 256;
+    public static final int MAX_DESCRIPTION_LENGTH = 4_096;
+    public static final int MAX_FIELD_NAME_LENGTH = 256;
+    public static final int MAX_FIELD_VALUE_LENGTH = 1_024;
+    public static final int MAX_FOOTER_LENGTH = 2_048;
+    public static final int MAX_AUTHOR_NAME_LENGTH = 256;
+
+    private static final String CONTENT = "content";
+    private static final String EMBEDS = "embeds";
+    private static final String FIELDS = "fields";
+    private static final String ELLIPSIS = "…";
+
+    private PayloadPacker() {
+    }
+
+    /**
+     * Splits a payload into messages that are each within Discord's limits. The payload is not modified. Properties
+     * other than {@code content} and {@code embeds} (such as {@code username}) are copied to every message.
+     */
+    public static List<JsonObject> split(JsonObject payload) {
+        JsonObject base = payload.deepCopy();
+        base.remove(CONTENT);
+        base.remove(EMBEDS);
+
+        List<String> contents = splitContent(string(payload, CONTENT));
+        List<JsonObject> embeds = new ArrayList<>();
+        if (payload.has(EMBEDS) && payload.get(EMBEDS).isJsonArray()) {
+            for (JsonElement embed : payload.getAsJsonArray(EMBEDS)) {
+                if (embed.isJsonObject()) {
+                    embeds.addAll(splitEmbed(embed.getAsJsonObject()));
+                }
+            }
+        }
+
+        List<JsonObject> messages = new ArrayList<>();
+
+        // Every content chunk but the last goes out on its own; the embeds follow the last one
+        for (int i = 0; i < contents.size() - 1; i++) {
+            JsonObject message = base.deepCopy();
+            message.addProperty(CONTENT, contents.get(i));
+            messages.add(message);
+        }
+
+        String lastContent = contents.isEmpty() ? null : contents.get(contents.size() - 1);
+        JsonObject current = null;
+        int currentLength = 0;
+
+        for (JsonObject embed : embeds) {
+            int length = embedLength(embed);
+            if (current == null || embedCount(current) >= MAX_EMBEDS || currentLength + length > MAX_TOTAL_EMBED_LENGTH) {
+                current = base.deepCopy();
+                current.add(EMBEDS, new JsonArray());
+                if (lastContent != null) {
+                    current.addProperty(CONTENT, lastContent);
+                    lastContent = null;
+                }
+                messages.add(current);
+                currentLength = 0;
+            }
+
+            current.getAsJsonArray(EMBEDS).add(embed);
+            currentLength += length;
+        }
+
+        if (lastContent != null) {
+            JsonObject message = base.deepCopy();
+            message.addProperty(CONTENT, lastContent);
+            messages.add(message);
+        }
+
+        return messages;
+    }
+
+    /**
+     * Combines two valid messages into one, the first one's content and embeds coming first.
+     *
+     * @return the combined message, or {@code null} if the two cannot be sent as one
+     */
+    public static JsonObject merge(JsonObject first, JsonObject second) {
+        if (!sameProperties(first, second)) {
+            return null;
+        }
+
+        String content = mergeContent(first, second);
+        if (content != null && content.length() > MAX_CONTENT_LENGTH) {
+            return null;
+        }
+
+        // The combined text would read out of order if the second message's text ended up above the first's embeds
+        if (embedCount(first) > 0 && string(second, CONTENT) != null && !sharesContent(first, second)) {
+            return null;
+        }
+
+        if (embedCount(first) + embedCount(second) > MAX_EMBEDS
+            || totalEmbedLength(first) + totalEmbedLength(second) > MAX_TOTAL_EMBED_LENGTH) {
+            return null;
+        }
+
+        JsonObject merged = first.deepCopy();
+        merged.remove(CONTENT);
+        merged.remove(EMBEDS);
+        if (content != null) {
+            merged.addProperty(CONTENT, content);
+        }
+
+        JsonArray embeds = new JsonArray();
+        if (first.has(EMBEDS)) {
+            embeds.addAll(first.getAsJsonArray(EMBEDS));
+        }
+        if (second.has(EMBEDS)) {
+            embeds.addAll(second.getAsJsonArray(EMBEDS));
+        }
+        if (!embeds.isEmpty()) {
+            merged.add(EMBEDS, embeds);
+        }
+
+        return merged;
+    }
+
+    /**
+     * Returns the number of characters an embed counts against {@link #MAX_TOTAL_EMBED_LENGTH}.
+     */
+    public static int embedLength(JsonObject embed) {
+        int length = length(string(embed, "title")) + length(string(embed, "description"))
+            + length(nestedString(embed, "footer", "text")) + length(nestedString(embed, "author", "name"));
+
+        if (embed.has(FIELDS) && embed.get(FIELDS).isJsonArray()) {
+            for (JsonElement field : embed.getAsJsonArray(FIELDS)) {
+                if (field.isJsonObject()) {
+                    length += length(string(field.getAsJsonObject(), "name")) + length(string(field.getAsJsonObject(), "value"));
+                }
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Truncates an embed's text to the per-element limits and continues its fields in further embeds when it has
+     * more than {@link #MAX_FIELDS} of them or more text than fits in one message. The description is also cut to
+     * whatever the title, footer and author leave of {@link #MAX_TOTAL_EMBED_LENGTH}, as those alone can exceed it.
+     * Continuation embeds repeat the title and colour but not the description, URL or image.
+     */
+    private static List<JsonObject> splitEmbed(JsonObject source) {
+        JsonObject embed = source.deepCopy();
+        truncate(embed, "title", MAX_TITLE_LENGTH);
+        truncateNested(embed, "footer", "text", MAX_FOOTER_LENGTH);
+        truncateNested(embed, "author", "name", MAX_AUTHOR_NAME_LENGTH);
+
+        JsonArray fields = embed.has(FIELDS) && embed.get(FIELDS).isJsonArray() ? embed.getAsJsonArray(FIELDS) : new JsonArray();
+        embed.remove(FIELDS);
+        int descriptionBudget = MAX_TOTAL_EMBED_LENGTH - (embedLength(embed) - length(string(embed, "description")));
+        truncate(embed, "description", Math.min(MAX_DESCRIPTION_LENGTH, descriptionBudget));
+
+        for (JsonElement field : fields) {
+            if (field.isJsonObject()) {
+                truncate(field.getAsJsonObject(), "name", MAX_FIELD_NAME_LENGTH);
+                truncate(field.getAsJsonObject(), "value", MAX_FIELD_VALUE_LENGTH);
+            }
+        }
+
+        if (fields.size() <= MAX_FIELDS && embedLength(embed) + fieldsLength(fields) <= MAX_TOTAL_EMBED_LENGTH) {
+            if (!fields.isEmpty()) {
+                embed.add(FIELDS, fields);
+            }
+            return List.of(embed);
+        }
+
+        JsonObject continuation = new JsonObject();
+        for (String property : List.of("title", "color", "footer", "timestamp")) {
+            if (embed.has(property)) {
+                continuation.add(property, embed.get(property).deepCopy());
+            }
+        }
+
+        List<JsonObject> parts = new ArrayList<>();
+        JsonObject current = embed;
+        JsonArray currentFields = new JsonArray();
+        int currentLength = embedLength(current);
+
+        for (JsonElement field : fields) {
+            int length = field.isJsonObject() ? fieldLength(field.getAsJsonObject()) : 0;
+            // The first embed may be too full for even one field; a continuation always has room for one
+            boolean full = currentLength + length > MAX_TOTAL_EMBED_LENGTH && (!currentFields.isEmpty() || current == embed);
+            if (currentFields.size() >= MAX_FIELDS || full) {
+                if (!currentFields.isEmpty()) {
+                    current.add(FIELDS, currentFields);
+                }
+                parts.add(current);
+                current = continuation.deepCopy();
+                currentFields = new JsonArray();
+                currentLength = embedLength(current);
+            }
+
+            currentFields.add(field);
+            currentLength += length;
+        }
+
+        if (!currentFields.isEmpty()) {
+            current.add(FIELDS, currentFields);
+        }
+        parts.add(current);
+        return parts;
+    }
+
+    private static List<String> splitContent(String content) {
+        if (content == null || content.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> chunks = new ArrayList<>();
+        String remaining = content;
+        while (remaining.length() > MAX_CONTENT_LENGTH) {
+            // Prefer breaking at a line, then at a space, so words and mentions stay intact
+            int end = remaining.lastIndexOf('\n', MAX_CONTENT_LENGTH);
+            if (end <= 0) {
+                end = remaining.lastIndexOf(' ', MAX_CONTENT_LENGTH);
+            }
+            if (end <= 0) {
+                end = MAX_CONTENT_LENGTH;
+            }
+
+            chunks.add(remaining.substring(0, end));
+            remaining = remaining.substring(end).stripLeading();
+        }
+
+        if (!remaining.isEmpty()) {
+            chunks.add(remaining);
+        }
+        return chunks;
+    }
+
+    private static String mergeContent(JsonObject first, JsonObject second) {
+        String firstContent = string(first, CONTENT);
+        String secondContent = string(second, CONTENT);
+        if (firstContent == null || sharesContent(first, second)) {
+            return secondContent != null ? secondContent : firstContent;
+        }
+
+        return secondContent == null ? firstContent : firstContent + "\n" + secondContent;
+    }
+
+    /**
+     * Whether both messages carry embeds under the same content, such as the role mention of the alert they belong
+     * to, which only needs to be sent once. Text of messages without embeds is never collapsed, even if it repeats.
+     */
+    private static boolean sharesContent(JsonObject first, JsonObject second) {
+        return embedCount(first) > 0 && embedCount(second) > 0
+            && string(first, CONTENT) != null && string(first, CONTENT).equals(string(second, CONTENT));
+    }
+
+    private static boolean sameProperties(JsonObject first, JsonObject second) {
+        int firstCount = 0;
+        for (Map.Entry<String, JsonElement> entry : first.entrySet()) {
+            if (entry.getKey().equals(CONTENT) || entry.getKey().equals(EMBEDS)) {
+                continue;
+            }
+
+            firstCount++;
+            if (!entry.getValue().equals(second.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        int secondCount = second.size() - (second.has(CONTENT) ? 1 : 0) - (second.has(EMBEDS) ? 1 : 0);
+        return firstCount == secondCount;
+    }
+
+    private static int embedCount(JsonObject message) {
+        return message.has(EMBEDS) && message.get(EMBEDS).isJsonArray() ? message.getAsJsonArray(EMBEDS).size() : 0;
+    }
+
+    private static int totalEmbedLength(JsonObject message) {
+        int length = 0;
+        if (message.has(EMBEDS) && message.get(EMBEDS).isJsonArray()) {
+            for (JsonElement embed : message.getAsJsonArray(EMBEDS)) {
+                if (embed.isJsonObject()) {
+                    length += embedLength(embed.getAsJsonObject());
+                }
+            }
+        }
+        return length;
+    }
+
+    private static int fieldsLength(JsonArray fields) {
+        int length = 0;
+        for (JsonElement field : fields) {
+            if (field.isJsonObject()) {
+                length += fieldLength(field.getAsJsonObject());
+            }
+        }
+        return length;
+    }
+
+    private static int fieldLength(JsonObject field) {
+        return length(string(field, "name")) + length(string(field, "value"));
+    }
+
+    private static void truncate(JsonObject object, String property, int maxLength) {
+        String value = string(object, property);
+        if (value != null && value.length() > maxLength) {
+            object.addProperty(property, value.substring(0, maxLength - ELLIPSIS.length()) + ELLIPSIS);
+        }
+    }
+
+    private static void truncateNested(JsonObject object, String child, String property, int maxLength) {
+        if (object.has(child) && object.get(child).isJsonObject()) {
+            truncate(object.getAsJsonObject(child), property, maxLength);
+        }
+    }
+
+    private static String string(JsonObject object, String property) {
+        JsonElement element = object.get(property);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private static String nestedString(JsonObject object, String child, String property) {
+        return object.has(child) && object.get(child).isJsonObject() ? string(object.getAsJsonObject(child), property) : null;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
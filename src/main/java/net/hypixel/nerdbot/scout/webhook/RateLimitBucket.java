@@ -0,0 +1,66 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import okhttp3.Response;
+
+/**
+ * Rate-limit state of one webhook, learned from the {@code X-RateLimit-*} headers Discord returns with every
+ * response. Until the first response arrives nothing is known and requests are not held back.
+ */
+final class RateLimitBucket {
+
+    private static final String REMAINING = "X-RateLimit-Remaining";
+    private static final String RESET_AFTER = "X-RateLimit-Reset-After";
+
+    private int remaining = -1;
+    private long resetAtNanos;
+
+    /**
+     * Returns how long to wait before the next request may be sent, and takes a request from the bucket if no wait
+     * is needed.
+     */
+    synchronized long tryAcquire(long nowNanos) {
+        if (remaining == 0) {
+            long waitNanos = resetAtNanos - nowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            // The window has reset; the next response tells us the new limit
+            remaining = -1;
+        }
+
+        if (remaining > 0) {
+            remaining--;
+        }
+        return 0;
+    }
+
+    /**
+     * Updates the bucket from a response. Responses without rate-limit headers leave it unchanged.
+     */
+    synchronized void update(Response response, long nowNanos) {
+        String remainingHeader = response.header(REMAINING);
+        String resetAfterHeader = response.header(RESET_AFTER);
+        if (remainingHeader == null || resetAfterHeader == null) {
+            return;
+        }
+
+        try {
+            remaining = Math.max(0, Integer.parseInt(remainingHeader.trim()));
+            resetAtNanos = nowNanos + secondsToNanos(Double.parseDouble(resetAfterHeader.trim()));
+        } catch (NumberFormatException ignored) {
+            // Keep what we knew before
+        }
+    }
+
+    /**
+     * Empties the bucket until the given delay has passed, e.g. after a 429.
+     */
+    synchronized void pause(long delayNanos, long nowNanos) {
+        remaining = 0;
+        resetAtNanos = Math.max(resetAtNanos, nowNanos + delayNanos);
+    }
+
+    static long secondsToNanos(double seconds) {
+        return seconds > 0 ? (long) Math.ceil(seconds * 1_000_000_000L) : 0;
+    }
+}
@@ -0,0 +1,82 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+public class WebhookConfig {
+
+    /**
+     * Maximum number of messages waiting to be delivered across all webhooks. Messages submitted while the queue is
+     * full are dropped.
+     */
+    private int queueCapacity = 1_000;
+
+    /**
+     * How long a message is held back so that other messages to the same webhook can be merged into it. Set to
+     * {@code 0} to send every message as soon as possible.
+     */
+    private long coalesceWindowMillis = 1_000;
+
+    /**
+     * Number of delivery attempts per message, including the first one, before it is dropped.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * How long a message may keep waiting out the delays of 429 responses before it is dropped. Rate-limited
+     * attempts follow the delay Discord asks for and do not count against {@code maxAttempts}.
+     */
+    private long maxRateLimitWaitSeconds = 900;
+
+    /**
+     * Delay before the first retry of a message that failed without the server saying how long to wait. Doubles
+     * with every further attempt.
+     */
+    private long initialRetryDelayMillis = 1_000;
+
+    /**
+     * Upper bound for any delay taken from a rate-limit response, so a bogus value cannot stall a webhook forever.
+     */
+    private long maxRetryDelaySeconds = 300;
+
+    /**
+     * How long to keep delivering queued messages on shutdown before giving up on them.
+     */
+    private long shutdownTimeoutSeconds = 10;
+
+    /**
+     * Directory of the durable outbox that queued messages are written to before sending. Leave empty to keep
+     * messages in memory only.
+     */
+    private String outboxDirectory = "outbox";
+
+    /**
+     * Size of each pre-allocated outbox segment file.
+     */
+    private int outboxSegmentBytes = 16 * 1024 * 1024;
+
+    /**
+     * How often appended messages are forced to disk. Senders wait for the next flush, so this bounds the latency
+     * the outbox adds to each message.
+     */
+    private long outboxFlushIntervalMillis = 20;
+
+    /**
+     * Upper bound for the number of requests in flight while fanning an event out to subscribers.
+     */
+    private int fanoutMaxParallelism = 128;
+
+    /**
+     * Time a fan-out should take at most. Parallelism is raised, up to {@code fanoutMaxParallelism}, until the
+     * recently observed request latency allows every subscriber to be served within it.
+     */
+    private long fanoutTargetSeconds = 30;
+
+    private long connectTimeoutSeconds = 10;
+    private long writeTimeoutSeconds = 10;
+    private long readTimeoutSeconds = 30;
+}
@@ -0,0 +1,607 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+import net.hypixel.nerdbot.scout.fetch.CircuitBreaker;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers webhook messages in the background so that handlers never wait on Discord.
+ * <p>
+ * Messages are queued per webhook and each webhook is drained by at most one virtual thread at a time, which keeps
+ * messages to the same channel in order while a slow or rate-limited webhook does not hold up any other. The total
+ * number of queued messages is bounded; when the queue is full, new messages are dropped rather than blocking the
+ * caller.
+ * <p>
+ * Payloads are split into valid messages by the {@link PayloadPacker} on the way in. On the way out, each message
+ * waits out a short coalescing window, and whatever else has been queued for the same webhook by then is merged into
+ * it as far as the message limits allow, so a burst of small events costs one request.
+ * <p>
+ * Every webhook has a {@link RateLimitBucket} fed by the {@code X-RateLimit-*} response headers, so requests are held
+ * back before Discord has to reject them. When it does answer 429, the message is retried after the
+ * {@code retry_after} it asked for, and a global rate limit pauses every webhook.
+ * <p>
+ * Unless disabled, every message is written to a {@link WebhookOutbox} before it is sent and acknowledged once it has
+ * been delivered, rejected outright or given up on. Messages still in the outbox when the dispatcher starts, because
+ * they were queued or being retried at the time, are sent first.
+ * <p>
+ * Events for many subscribers go through {@link #fanOut(JsonObject, List)} instead, see {@link WebhookFanout}.
+ */
+@Slf4j
+public final class WebhookDispatcher implements AutoCloseable {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    /**
+     * Returned by {@link #send} when the message is done with.
+     */
+    private static final long DONE = -1;
+    /**
+     * Returned by {@link #send} after a 429, whose delay is waited out by the rate-limit bucket.
+     */
+    private static final long RATE_LIMITED = -2;
+
+    private static volatile WebhookDispatcher instance;
+
+    private final WebhookConfig config;
+    private final OkHttpClient client;
+    private final ExecutorService executor;
+    private final WebhookOutbox outbox;
+    private final WebhookFanout fanout;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong globalPausedUntilNanos = new AtomicLong(System.nanoTime());
+    private volatile boolean closed;
+
+    private WebhookDispatcher(WebhookConfig config) {
+        this.config = config;
+        this.client = new OkHttpClient.Builder()
+            .connectTimeout(config.getConnectTimeoutSeconds(), TimeUnit.SECONDS)
+            .writeTimeout(config.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+            .readTimeout(config.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+            // Keep enough connections around for a fan-out to reuse them
+            .connectionPool(new ConnectionPool(Math.max(5, config.getFanoutMaxParallelism()), 5, TimeUnit.MINUTES))
+            .build();
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("WebhookDispatcher-", 0).factory());
+        this.outbox = openOutbox(config);
+        this.fanout = new WebhookFanout(this, config, client, executor);
+    }
+
+    /**
+     * Replaces the shared dispatcher with one built from the given config. Should be called once on startup,
+     * before any handlers send messages.
+     */
+    public static synchronized WebhookDispatcher initialize(WebhookConfig config) {
+        WebhookDispatcher previous = instance;
+
+        // The previous dispatcher has to let go of the outbox before the new one can open it
+        if (previous != null) {
+            previous.close();
+        }
+
+        instance = new WebhookDispatcher(config != null ? config : new WebhookConfig());
+        instance.replayOutbox();
+
+        log.info("Webhook dispatcher initialised with config: {}", config);
+        return instance;
+    }
+
+    /**
+     * Returns the shared dispatcher, creating one with default settings if {@link #initialize(WebhookConfig)}
+     * has not been called yet.
+     */
+    public static WebhookDispatcher getInstance() {
+        WebhookDispatcher dispatcher = instance;
+        if (dispatcher == null) {
+            synchronized (WebhookDispatcher.class) {
+                if (instance == null) {
+                    instance = new WebhookDispatcher(new WebhookConfig());
+                    instance.replayOutbox();
+                }
+                dispatcher = instance;
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Queues a payload for delivery and returns immediately. The payload is copied right away, so the caller may
+     * reuse it afterwards. Payloads over Discord's limits are split into several messages.
+     *
+     * @return {@code false} if the payload (or part of it) was dropped because the dispatcher is closed or its queue
+     * is full
+     */
+    public boolean submit(String webhookUrl, JsonObject payload) {
+        if (webhookUrl == null || webhookUrl.isBlank()) {
+            log.warn("Dropping webhook message without a webhook URL");
+            ScoutMetrics.WEBHOOK_DROPS.labels("no_url").inc();
+            return false;
+        }
+
+        if (closed) {
+            log.warn("Dropping webhook message to {}: dispatcher is closed", webhookUrl);
+            ScoutMetrics.WEBHOOK_DROPS.labels("closed").inc();
+            return false;
+        }
+
+        List<JsonObject> messages = PayloadPacker.split(payload);
+        if (messages.size() > 1) {
+            ScoutMetrics.WEBHOOK_PAYLOADS_PACKED.labels("split").inc(messages.size() - 1);
+        }
+
+        Lane lane = lanes.computeIfAbsent(webhookUrl, Lane::new);
+        long now = System.nanoTime();
+        for (int i = 0; i < messages.size(); i++) {
+            if (!reserve()) {
+                log.warn("Dropping webhook message to {}: {} messages already queued", webhookUrl, config.getQueueCapacity());
+                ScoutMetrics.WEBHOOK_DROPS.labels("queue_full").inc(messages.size() - i);
+                return false;
+            }
+
+            lane.offer(new Message(messages.get(i), now, appendToOutbox(webhookUrl, messages.get(i))));
+        }
+        return true;
+    }
+
+    /**
+     * Sends a payload to every recipient in the background, with bounded parallelism. The payload is copied right
+     * away, so the caller may reuse it afterwards.
+     *
+     * @return completes once every recipient has been delivered to or given up on
+     */
+    public CompletableFuture<WebhookFanout.Result> fanOut(JsonObject payload, List<WebhookFanout.Recipient> recipients) {
+        if (closed) {
+            log.warn("Dropping fan-out to {} webhooks: dispatcher is closed", recipients.size());
+            ScoutMetrics.WEBHOOK_FANOUT_DELIVERIES.labels("failed").inc(recipients.size());
+            return CompletableFuture.completedFuture(new WebhookFanout.Result(0, recipients.size(), List.of(), 0));
+        }
+
+        return fanout.deliver(payload, List.copyOf(recipients));
+    }
+
+    /**
+     * Stops accepting messages and keeps delivering the ones already queued for up to the configured shutdown
+     * timeout. Whatever is still queued after that is dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(config.getShutdownTimeoutSeconds(), TimeUnit.SECONDS)) {
+                log.warn("Webhook dispatcher did not drain within {}s, dropping {} queued messages",
+                    config.getShutdownTimeoutSeconds(), queued.get());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException exception) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    private static WebhookOutbox openOutbox(WebhookConfig config) {
+        String directory = config.getOutboxDirectory();
+        if (directory == null || directory.isBlank()) {
+            log.warn("Webhook outbox disabled, queued messages will be lost on restart");
+            return null;
+        }
+
+        try {
+            return WebhookOutbox.open(Path.of(directory), config.getOutboxSegmentBytes(), config.getOutboxFlushIntervalMillis());
+        } catch (IOException | RuntimeException exception) {
+            log.error("Failed to open webhook outbox in {}, continuing without it", directory, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Queues every message left undelivered in the outbox. Replayed messages are queued even if that exceeds the
+     * queue capacity, since they are already on disk.
+     */
+    private void replayOutbox() {
+        if (outbox == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<WebhookOutbox.Entry> entries = outbox.pending();
+        for (WebhookOutbox.Entry entry : entries) {
+            JsonObject payload;
+            try {
+                payload = JsonParser.parseString(entry.payload()).getAsJsonObject();
+            } catch (RuntimeException exception) {
+                log.warn("Discarding unreadable webhook message {} from the outbox: {}", entry.id(), exception.getMessage());
+                outbox.acknowledge(List.of(entry.id()));
+                continue;
+            }
+
+            queued.incrementAndGet();
+            ScoutMetrics.WEBHOOK_QUEUE_DEPTH.inc();
+            lanes.computeIfAbsent(entry.webhookUrl(), Lane::new).offer(new Message(payload, now, List.of(entry.id())));
+        }
+
+        if (!entries.isEmpty()) {
+            log.info("Replaying {} undelivered webhook messages from the outbox", entries.size());
+        }
+    }
+
+    /**
+     * @return the outbox ids to acknowledge the message with once it is delivered
+     */
+    private List<Long> appendToOutbox(String webhookUrl, JsonObject payload) {
+        if (outbox == null) {
+            return List.of();
+        }
+
+        try {
+            return List.of(outbox.append(webhookUrl, payload.toString()));
+        } catch (RuntimeException exception) {
+            log.error("Failed to write webhook message to the outbox, it will not survive a restart", exception);
+            return List.of();
+        }
+    }
+
+    private boolean reserve() {
+        int capacity = Math.max(1, config.getQueueCapacity());
+        while (true) {
+            int current = queued.get();
+            if (current >= capacity) {
+                return false;
+            }
+
+            if (queued.compareAndSet(current, current + 1)) {
+                ScoutMetrics.WEBHOOK_QUEUE_DEPTH.inc();
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        queued.decrementAndGet();
+        ScoutMetrics.WEBHOOK_QUEUE_DEPTH.dec();
+    }
+
+    /**
+     * Sends a message until it is delivered, rejected or out of attempts. Rate-limited attempts wait as long as
+     * Discord asks and are not counted, up to a separate time limit.
+     */
+    private void deliver(Lane lane, Message message) throws InterruptedException {
+        ScoutMetrics.WEBHOOK_QUEUE_WAIT.observe((System.nanoTime() - message.enqueuedNanos()) / 1_000_000_000.0);
+        String body = message.payload().toString();
+
+        if (outbox != null && !message.outboxIds().isEmpty()) {
+            outbox.awaitDurable(Collections.max(message.outboxIds()));
+        }
+
+        int maxAttempts = Math.max(1, config.getMaxAttempts());
+        long rateLimitDeadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getMaxRateLimitWaitSeconds());
+        int attempt = 1;
+        while (true) {
+            awaitPermit(lane.bucket);
+
+            long retryDelayNanos = send(lane, body, attempt);
+            if (retryDelayNanos == DONE) {
+                acknowledge(message);
+                return;
+            }
+
+            if (retryDelayNanos == RATE_LIMITED) {
+                if (System.nanoTime() - rateLimitDeadlineNanos > 0) {
+                    log.error("Giving up on webhook message to {} after being rate limited for over {}s",
+                        lane.webhookUrl, config.getMaxRateLimitWaitSeconds());
+                    ScoutMetrics.WEBHOOK_DROPS.labels("rate_limited").inc();
+                    acknowledge(message);
+                    return;
+                }
+                continue;
+            }
+
+            if (attempt++ >= maxAttempts) {
+                // Acknowledged as well, or it would be replayed on every restart and keep its segment around for good
+                log.error("Giving up on webhook message to {} after {} attempts", lane.webhookUrl, attempt - 1);
+                ScoutMetrics.WEBHOOK_DROPS.labels("attempts_exhausted").inc();
+                acknowledge(message);
+                return;
+            }
+
+            TimeUnit.NANOSECONDS.sleep(retryDelayNanos);
+        }
+    }
+
+    /**
+     * Marks a message as done with in the outbox, whether it was delivered or given up on.
+     */
+    private void acknowledge(Message message) {
+        if (outbox != null && !message.outboxIds().isEmpty()) {
+            outbox.acknowledge(message.outboxIds());
+        }
+    }
+
+    private void awaitPermit(RateLimitBucket bucket) throws InterruptedException {
+        while (true) {
+            awaitGlobalPause();
+
+            long now = System.nanoTime();
+            long bucketWaitNanos = bucket.tryAcquire(now);
+            if (bucketWaitNanos <= 0) {
+                return;
+            }
+
+            log.debug("Webhook rate limit reached, waiting {}ms", TimeUnit.NANOSECONDS.toMillis(bucketWaitNanos));
+            TimeUnit.NANOSECONDS.sleep(bucketWaitNanos);
+        }
+    }
+
+    /**
+     * Waits until no global rate limit is in effect.
+     */
+    void awaitGlobalPause() throws InterruptedException {
+        long globalWaitNanos;
+        while ((globalWaitNanos = globalPausedUntilNanos.get() - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(globalWaitNanos);
+        }
+    }
+
+    /**
+     * Holds back every webhook for the given time, after a global rate limit.
+     */
+    void pauseAll(long delayNanos) {
+        long until = System.nanoTime() + delayNanos;
+        globalPausedUntilNanos.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+    }
+
+    /**
+     * Makes one delivery attempt.
+     *
+     * @return how long to wait before retrying, {@link #DONE} if the message is done with, or {@link #RATE_LIMITED}
+     */
+    private long send(Lane lane, String body, int attempt) {
+        Request request = new Request.Builder()
+            .url(lane.webhookUrl)
+            .post(RequestBody.create(body, JSON))
+            .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            long now = System.nanoTime();
+            lane.bucket.update(response, now);
+
+            if (response.isSuccessful()) {
+                ScoutMetrics.WEBHOOKS_SENT.labels("success").inc();
+                log.debug("Successfully sent webhook to {}", lane.webhookUrl);
+                return DONE;
+            }
+
+            if (response.code() == 429) {
+                return rateLimited(lane, response, now);
+            }
+
+            if (response.code() >= 500) {
+                ScoutMetrics.WEBHOOKS_SENT.labels("failure").inc();
+                long retryDelayNanos = Math.max(backoffNanos(attempt), CircuitBreaker.parseRetryAfterNanos(response.header("Retry-After")));
+                log.warn("Failed to send webhook to {}: HTTP {}, retrying in {}ms",
+                    lane.webhookUrl, response.code(), TimeUnit.NANOSECONDS.toMillis(retryDelayNanos));
+                return capped(retryDelayNanos);
+            }
+
+            ScoutMetrics.WEBHOOKS_SENT.labels("failure").inc();
+            ScoutMetrics.WEBHOOK_DROPS.labels("rejected").inc();
+            log.error("Failed to send webhook to {}: HTTP {} - {}", lane.webhookUrl, response.code(), response.message());
+            return DONE;
+        } catch (IOException exception) {
+            ScoutMetrics.WEBHOOKS_SENT.labels("error").inc();
+            log.error("Failed to send webhook to {}: {}", lane.webhookUrl, exception.toString());
+            return backoffNanos(attempt);
+        }
+    }
+
+    /**
+     * Reads the delay and scope of a 429. Discord puts the precise delay in the body's {@code retry_after} (in
+     * seconds, with fractions) and whether the limit is global in its {@code global} flag; the {@code Retry-After}
+     * and {@code X-RateLimit-Global} headers are the fallback. Consumes the response body.
+     */
+    RateLimit rateLimit(String webhookUrl, Response response) {
+        double retryAfterSeconds = -1;
+        boolean global = "true".equalsIgnoreCase(response.header("X-RateLimit-Global"));
+
+        try {
+            ResponseBody body = response.body();
+            JsonElement element = JsonParser.parseString(body.string());
+            if (element.isJsonObject()) {
+                JsonObject object = element.getAsJsonObject();
+                if (object.has("retry_after")) {
+                    retryAfterSeconds = object.get("retry_after").getAsDouble();
+                }
+                global |= object.has("global") && object.get("global").getAsBoolean();
+            }
+        } catch (IOException | RuntimeException exception) {
+            log.debug("Could not read rate-limit body from {}: {}", webhookUrl, exception.toString());
+        }
+
+        long delayNanos = capped(retryAfterSeconds >= 0
+            ? RateLimitBucket.secondsToNanos(retryAfterSeconds)
+            : Math.max(backoffNanos(1), CircuitBreaker.parseRetryAfterNanos(response.header("Retry-After"))));
+
+        ScoutMetrics.WEBHOOK_RATE_LIMITED.labels(global ? "global" : "webhook").inc();
+        log.warn("Webhook {} rate limited ({}), retrying in {}ms",
+            webhookUrl, global ? "global" : "webhook", TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        return new RateLimit(delayNanos, global);
+    }
+
+    /**
+     * Handles a 429 for a queued message by pausing its webhook, or every webhook if the limit is global.
+     */
+    private long rateLimited(Lane lane, Response response, long now) {
+        RateLimit limit = rateLimit(lane.webhookUrl, response);
+        ScoutMetrics.WEBHOOKS_SENT.labels("rate_limited").inc();
+
+        if (limit.global()) {
+            pauseAll(limit.delayNanos());
+        } else {
+            lane.bucket.pause(limit.delayNanos(), now);
+        }
+
+        // Waiting for the permit takes care of the delay
+        return RATE_LIMITED;
+    }
+
+    long backoffNanos(int attempt) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getInitialRetryDelayMillis()));
+        for (int i = 1; i < attempt; i++) {
+            delayNanos *= 2;
+            if (delayNanos >= TimeUnit.SECONDS.toNanos(config.getMaxRetryDelaySeconds())) {
+                break;
+            }
+        }
+        return capped(delayNanos);
+    }
+
+    long capped(long delayNanos) {
+        return Math.min(delayNanos, TimeUnit.SECONDS.toNanos(Math.max(1, config.getMaxRetryDelaySeconds())));
+    }
+
+    /**
+     * Delay asked for by a 429, and whether it applies to every webhook rather than just the one that got it.
+     */
+    record RateLimit(long delayNanos, boolean global) {
+    }
+
+    private record Message(JsonObject payload, long enqueuedNanos, List<Long> outboxIds) {
+    }
+
+    /**
+     * Messages queued for one webhook, drained in order by at most one virtual thread.
+     */
+    private final class Lane implements Runnable {
+
+        private final String webhookUrl;
+        private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final RateLimitBucket bucket = new RateLimitBucket();
+
+        private Lane(String webhookUrl) {
+            this.webhookUrl = webhookUrl;
+        }
+
+        private void offer(Message message) {
+            messages.add(message);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                executor.execute(this);
+            } catch (RuntimeException exception) {
+                // Rejected after shutdown
+                draining.set(false);
+                dropAll("closed");
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Message message;
+                while ((message = messages.poll()) != null) {
+                    int batched = 1;
+                    try {
+                        awaitCoalescingWindow(message);
+
+                        JsonObject payload = message.payload();
+                        List<Long> outboxIds = new ArrayList<>(message.outboxIds());
+                        Message next;
+                        while ((next = messages.peek()) != null) {
+                            JsonObject merged = PayloadPacker.merge(payload, next.payload());
+                            if (merged == null) {
+                                break;
+                            }
+
+                            messages.poll();
+                            batched++;
+                            payload = merged;
+                            outboxIds.addAll(next.outboxIds());
+                        }
+
+                        if (batched > 1) {
+                            ScoutMetrics.WEBHOOK_PAYLOADS_PACKED.labels("coalesced").inc(batched - 1);
+                        }
+                        deliver(this, new Message(payload, message.enqueuedNanos(), outboxIds));
+                    } catch (InterruptedException exception) {
+                        ScoutMetrics.WEBHOOK_DROPS.labels("closed").inc(batched);
+                        throw exception;
+                    } finally {
+                        for (int i = 0; i < batched; i++) {
+                            release();
+                        }
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                dropAll("closed");
+                return;
+            } finally {
+                draining.set(false);
+            }
+
+            // A message may have been queued after the last poll but before draining was cleared
+            if (!messages.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        /**
+         * Holds a message back until it has been queued for the coalescing window, so that messages queued right
+         * behind it can be sent along with it. Skipped on shutdown.
+         */
+        private void awaitCoalescingWindow(Message message) throws InterruptedException {
+            long waitNanos = message.enqueuedNanos() + TimeUnit.MILLISECONDS.toNanos(config.getCoalesceWindowMillis()) - System.nanoTime();
+            if (waitNanos > 0 && !closed) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        private void dropAll(String reason) {
+            Message message;
+            while ((message = messages.poll()) != null) {
+                release();
+                ScoutMetrics.WEBHOOK_DROPS.labels(reason).inc();
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.ScoutMetrics;
+import net.hypixel.nerdbot.scout.fetch.CircuitBreaker;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends one payload to a large number of webhooks, such as every community server subscribed to a feed.
+ * <p>
+ * The payload is split and serialised once; only the role mention of each recipient is spliced into the first message
+ * it gets. Recipients are served by virtual threads over the dispatcher's shared connection pool, with the number of
+ * requests in flight bounded. The bound is sized so that, at the recently observed request latency, the whole fan-out
+ * fits within the configured target time, up to the configured maximum.
+ * <p>
+ * Unlike {@link WebhookDispatcher#submit}, fan-out deliveries are neither coalesced nor written to the outbox: each
+ * recipient gets exactly one request per message, and an event that is interrupted by a restart is not re-sent to
+ * thousands of servers.
+ */
+@Slf4j
+public final class WebhookFanout {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final long INITIAL_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final WebhookDispatcher dispatcher;
+    private final WebhookConfig config;
+    private final OkHttpClient client;
+    private final ExecutorService executor;
+    /**
+     * Smoothed duration of a single successful request, used to size the parallelism of the next fan-out.
+     */
+    private final AtomicLong averageLatencyNanos = new AtomicLong(INITIAL_LATENCY_NANOS);
+
+    WebhookFanout(WebhookDispatcher dispatcher, WebhookConfig config, OkHttpClient client, ExecutorService executor) {
+        this.dispatcher = dispatcher;
+        this.config = config;
+        this.client = client;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts delivering the payload to every recipient and returns immediately.
+     *
+     * @return completes once every recipient has been delivered to or given up on
+     */
+    CompletableFuture<Result> deliver(JsonObject payload, List<Recipient> recipients) {
+        List<PreparedMessage> messages = PayloadPacker.split(payload).stream().map(PreparedMessage::of).toList();
+        if (recipients.isEmpty() || messages.isEmpty()) {
+            return CompletableFuture.completedFuture(Result.EMPTY);
+        }
+
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> result.complete(run(messages, recipients)));
+        } catch (RuntimeException exception) {
+            log.warn("Dropping fan-out to {} webhooks: dispatcher is closed", recipients.size());
+            ScoutMetrics.WEBHOOK_FANOUT_DELIVERIES.labels("failed").inc(recipients.size());
+            result.complete(new Result(0, recipients.size(), List.of(), 0));
+        }
+        return result;
+    }
+
+    private Result run(List<PreparedMessage> messages, List<Recipient> recipients) {
+        long startNanos = System.nanoTime();
+        int parallelism = parallelismFor(recipients.size() * messages.size());
+        Semaphore permits = new Semaphore(parallelism);
+        CountDownLatch remaining = new CountDownLatch(recipients.size());
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<String> gone = Collections.synchronizedList(new ArrayList<>());
+
+        log.info("Fanning out {} message(s) to {} webhooks with up to {} requests in flight",
+            messages.size(), recipients.size(), parallelism);
+
+        try {
+            for (Recipient recipient : recipients) {
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            switch (deliverTo(recipient, messages, startNanos)) {
+                                case DELIVERED -> delivered.incrementAndGet();
+                                case GONE -> gone.add(recipient.webhookUrl());
+                                case FAILED -> failed.incrementAndGet();
+                            }
+                        } finally {
+                            permits.release();
+                            remaining.countDown();
+                        }
+                    });
+                } catch (RuntimeException exception) {
+                    // Rejected after shutdown
+                    permits.release();
+                    failed.incrementAndGet();
+                    remaining.countDown();
+                }
+            }
+
+            remaining.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            log.warn("Fan-out interrupted after {} of {} webhooks", delivered.get() + failed.get() + gone.size(), recipients.size());
+        }
+
+        long durationNanos = System.nanoTime() - startNanos;
+        ScoutMetrics.WEBHOOK_FANOUT_DURATION.observe(durationNanos / 1_000_000_000.0);
+
+        long targetNanos = TimeUnit.SECONDS.toNanos(config.getFanoutTargetSeconds());
+        if (durationNanos > targetNanos) {
+            log.warn("Fan-out to {} webhooks took {}ms, over the {}s target",
+                recipients.size(), TimeUnit.NANOSECONDS.toMillis(durationNanos), config.getFanoutTargetSeconds());
+        } else {
+            log.info("Fan-out to {} webhooks done in {}ms ({} delivered, {} failed, {} gone)",
+                recipients.size(), TimeUnit.NANOSECONDS.toMillis(durationNanos), delivered.get(), failed.get(), gone.size());
+        }
+
+        return new Result(delivered.get(), failed.get(), List.copyOf(gone), durationNanos);
+    }
+
+    /**
+     * Returns how many requests to keep in flight so that the given number of requests finish within the target
+     * time at the current average latency.
+     */
+    private int parallelismFor(int requests) {
+        double targetNanos = Math.max(1, TimeUnit.SECONDS.toNanos(config.getFanoutTargetSeconds()));
+        long needed = (long) Math.ceil(requests * (double) averageLatencyNanos.get() / targetNanos);
+        return (int) Math.max(1, Math.min(Math.max(1, config.getFanoutMaxParallelism()), needed));
+    }
+
+    private Outcome deliverTo(Recipient recipient, List<PreparedMessage> messages, long startNanos) {
+        for (int i = 0; i < messages.size(); i++) {
+            String body = messages.get(i).bodyFor(i == 0 ? recipient.mention() : null);
+            Outcome outcome = send(recipient.webhookUrl(), body);
+            if (outcome != Outcome.DELIVERED) {
+                ScoutMetrics.WEBHOOK_FANOUT_DELIVERIES.labels(outcome.label).inc();
+                return outcome;
+            }
+        }
+
+        ScoutMetrics.WEBHOOK_FANOUT_DELIVERIES.labels(Outcome.DELIVERED.label).inc();
+        ScoutMetrics.WEBHOOK_FANOUT_TIME_TO_DELIVERY.observe((System.nanoTime() - startNanos) / 1_000_000_000.0);
+        return Outcome.DELIVERED;
+    }
+
+    private Outcome send(String webhookUrl, String body) {
+        Request request = new Request.Builder()
+            .url(webhookUrl)
+            .post(RequestBody.create(body, JSON))
+            .build();
+
+        int maxAttempts = Math.max(1, config.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            long retryDelayNanos;
+
+            try {
+                dispatcher.awaitGlobalPause();
+
+                long requestStartNanos = System.nanoTime();
+                try (Response response = client.newCall(request).execute()) {
+                    long latencyNanos = System.nanoTime() - requestStartNanos;
+                    if (response.isSuccessful()) {
+                        recordLatency(latencyNanos);
+                        observeRequest(Outcome.DELIVERED.label, latencyNanos);
+                        return Outcome.DELIVERED;
+                    }
+
+                    // The webhook was deleted or its token revoked; it will never work again
+                    if (response.code() == 404 || response.code() == 401) {
+                        observeRequest(Outcome.GONE.label, latencyNanos);
+                        log.info("Webhook {} is gone (HTTP {})", webhookUrl, response.code());
+                        return Outcome.GONE;
+                    }
+
+                    if (response.code() != 429 && response.code() < 500) {
+                        observeRequest(Outcome.FAILED.label, latencyNanos);
+                        log.warn("Fan-out to {} rejected: HTTP {} - {}", webhookUrl, response.code(), response.message());
+                        return Outcome.FAILED;
+                    }
+
+                    observeRequest("retry", latencyNanos);
+
+                    if (response.code() == 429) {
+                        WebhookDispatcher.RateLimit limit = dispatcher.rateLimit(webhookUrl, response);
+                        retryDelayNanos = limit.delayNanos();
+                        if (limit.global()) {
+                            dispatcher.pauseAll(retryDelayNanos);
+                        }
+                    } else {
+                        retryDelayNanos = Math.max(dispatcher.backoffNanos(attempt), CircuitBreaker.parseRetryAfterNanos(response.header("Retry-After")));
+                    }
+                } catch (IOException exception) {
+                    observeRequest("error", System.nanoTime() - requestStartNanos);
+                    log.debug("Fan-out to {} failed: {}", webhookUrl, exception.toString());
+                    retryDelayNanos = dispatcher.backoffNanos(attempt);
+                }
+
+                if (attempt >= maxAttempts) {
+                    log.warn("Giving up on fan-out to {} after {} attempts", webhookUrl, attempt);
+                    return Outcome.FAILED;
+                }
+
+                TimeUnit.NANOSECONDS.sleep(dispatcher.capped(retryDelayNanos));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return Outcome.FAILED;
+            }
+        }
+    }
+
+    private static void observeRequest(String outcome, long latencyNanos) {
+        ScoutMetrics.WEBHOOK_FANOUT_LATENCY.labels(outcome).observe(latencyNanos / 1_000_000_000.0);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        averageLatencyNanos.getAndUpdate(average -> (long) (average + LATENCY_SMOOTHING * (latencyNanos - average)));
+    }
+
+    private enum Outcome {
+        DELIVERED("delivered"),
+        FAILED("failed"),
+        GONE("gone");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * A webhook to fan out to.
+     *
+     * @param mention role mention to put in front of the content of the first message, or {@code null}
+     */
+    public record Recipient(String webhookUrl, String mention) {
+    }
+
+    /**
+     * @param gone webhooks that answered 404 or 401 and should not be sent to again
+     */
+    public record Result(int delivered, int failed, List<String> gone, long durationNanos) {
+        public static final Result EMPTY = new Result(0, 0, List.of(), 0);
+    }
+
+    /**
+     * A message serialised once for all recipients. The content is kept apart so a mention can be put in front of it
+     * without serialising the embeds again.
+     *
+     * @param content the message content, or {@code null}
+     * @param rest    the rest of the message as JSON
+     */
+    private record PreparedMessage(String content, String rest) {
+
+        private static PreparedMessage of(JsonObject message) {
+            JsonObject rest = message.deepCopy();
+            String content = rest.has("content") && rest.get("content").isJsonPrimitive() ? rest.get("content").getAsString() : null;
+            rest.remove("content");
+            return new PreparedMessage(content, rest.toString());
+        }
+
+        private String bodyFor(String mention) {
+            String text = content;
+            if (mention != null) {
+                String mentioned = text == null ? mention : mention + "\n\n" + text;
+                // Rather lose the mention than the end of the message
+                if (mentioned.length() <= PayloadPacker.MAX_CONTENT_LENGTH) {
+                    text = mentioned;
+                }
+            }
+
+            if (text == null) {
+                return rest;
+            }
+
+            String quoted = new JsonPrimitive(text).toString();
+            return rest.equals("{}")
+                ? "{\"content\":" + quoted + "}"
+                : "{\"content\":" + quoted + "," + rest.substring(1);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of outgoing webhook messages, so that nothing queued is lost to a restart or a Discord outage.
+ * <p>
+ * Every message is appended before it is sent and acknowledged once it is done with, delivered or not, so only
+ * messages cut short by a restart are ever replayed. The log is split into pre-allocated, memory-mapped segment
+ * files; records are copied into the mapping and a flusher thread forces it to disk every few milliseconds, so one
+ * fsync covers every message appended in between. Senders wait for their record to be durable before sending, which
+ * costs at most one flush interval.
+ * <p>
+ * On startup, the segments are read back and every message without an acknowledgement is handed back for delivery.
+ * A record that fails its checksum marks the torn end of a segment. Segments are removed oldest first once all of
+ * their messages are acknowledged; the few that are still pending in an old segment are copied forward first, so a
+ * single stuck message does not pin the log.
+ * <p>
+ * Record layout: {@code int length, int crc32c, byte type, long id} followed, for messages, by
+ * {@code int urlLength, url, payload}. A zero length marks the end of the written part of a segment.
+ */
+@Slf4j
+final class WebhookOutbox implements AutoCloseable {
+
+    private static final byte MESSAGE = 1;
+    private static final byte ACK = 2;
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long flushIntervalMillis;
+    private final Object lock = new Object();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private final Thread flusher;
+    private Segment active;
+    private long nextId = 1;
+    private long writtenId;
+    private long durableId;
+    private volatile boolean closed;
+
+    private WebhookOutbox(Path directory, int segmentBytes, long flushIntervalMillis) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flusher = Thread.ofPlatform().daemon().name("WebhookOutbox-Flusher").unstarted(this::runFlusher);
+    }
+
+    /**
+     * Opens the outbox in {@code directory}, reading back any segments left by a previous run.
+     */
+    static WebhookOutbox open(Path directory, int segmentBytes, long flushIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+
+        WebhookOutbox outbox = new WebhookOutbox(directory, Math.max(4096, segmentBytes), Math.max(1, flushIntervalMillis));
+        long lastIndex = 0;
+        for (Path path : listSegments(directory)) {
+            Segment segment = new Segment(segmentIndex(path), path);
+            outbox.replay(segment);
+            outbox.segments.addLast(segment);
+            lastIndex = segment.index;
+        }
+
+        outbox.durableId = outbox.nextId - 1;
+        outbox.writtenId = outbox.durableId;
+        outbox.active = outbox.createSegment(lastIndex + 1, outbox.segmentBytes);
+        outbox.flusher.start();
+
+        log.info("Opened webhook outbox in {} with {} undelivered messages", directory, outbox.pending.size());
+        return outbox;
+    }
+
+    /**
+     * Returns the messages that have not been acknowledged, oldest first.
+     */
+    List<Entry> pending() {
+        synchronized (lock) {
+            return List.copyOf(pending.values());
+        }
+    }
+
+    /**
+     * Appends a message. The record is not durable until {@link #awaitDurable(long)} returns for its id.
+     *
+     * @return the id to acknowledge the message with
+     */
+    long append(String webhookUrl, String payload) {
+        byte[] url = webhookUrl.getBytes(StandardCharsets.UTF_8);
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+
+        synchronized (lock) {
+            ensureOpen();
+            long id = nextId++;
+            int recordBytes = writeMessage(id, url, body);
+            pending.put(id, new Entry(id, webhookUrl, payload, active, recordBytes));
+            active.track(recordBytes);
+            writtenId = id;
+            return id;
+        }
+    }
+
+    /**
+     * Marks messages as done with, so they are not replayed. Acknowledgements are flushed with the next batch.
+     */
+    void acknowledge(Collection<Long> ids) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            for (long id : ids) {
+                Entry entry = pending.remove(id);
+                if (entry == null) {
+                    continue;
+                }
+
+                entry.segment().untrack(entry.recordBytes());
+                ByteBuffer record = record(ACK, id, 0);
+                write(record);
+            }
+        }
+    }
+
+    /**
+     * Blocks until every record up to and including {@code id} has been forced to disk.
+     */
+    void awaitDurable(long id) throws InterruptedException {
+        synchronized (lock) {
+            while (durableId < id && !closed) {
+                lock.wait();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (lock) {
+            active.buffer.force();
+            closeQuietly(active);
+            durableId = writtenId;
+            lock.notifyAll();
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            try {
+                Thread.sleep(flushIntervalMillis);
+            } catch (InterruptedException exception) {
+                return;
+            }
+
+            try {
+                flush();
+                compact();
+            } catch (RuntimeException exception) {
+                log.error("Failed to flush webhook outbox in {}", directory, exception);
+            }
+        }
+    }
+
+    private void flush() {
+        long target;
+        Segment segment;
+        synchronized (lock) {
+            if (durableId >= writtenId && !active.dirty) {
+                return;
+            }
+            target = writtenId;
+            segment = active;
+            segment.dirty = false;
+        }
+
+        // Forcing outside the lock keeps appends going; earlier segments were forced when they were rotated out
+        segment.buffer.force();
+
+        synchronized (lock) {
+            durableId = Math.max(durableId, target);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Removes the oldest segments once nothing in them is pending. Pending messages in the oldest segment are
+     * copied forward when they take up little of it.
+     */
+    private void compact() {
+        synchronized (lock) {
+            while (!segments.isEmpty()) {
+                Segment oldest = segments.peekFirst();
+                if (oldest.pendingCount > 0) {
+                    if (oldest.pendingBytes > segmentBytes / 4) {
+                        return;
+                    }
+                    relocate(oldest);
+                }
+
+                segments.removeFirst();
+                try {
+                    Files.deleteIfExists(oldest.path);
+                    log.debug("Removed webhook outbox segment {}", oldest.path);
+                } catch (IOException exception) {
+                    log.warn("Failed to remove webhook outbox segment {}: {}", oldest.path, exception.getMessage());
+                }
+            }
+        }
+    }
+
+    private void relocate(Segment segment) {
+        List<Entry> moved = new ArrayList<>();
+        for (Entry entry : pending.values()) {
+            if (entry.segment() == segment) {
+                moved.add(entry);
+            }
+        }
+
+        for (Entry entry : moved) {
+            byte[] url = entry.webhookUrl().getBytes(StandardCharsets.UTF_8);
+            byte[] body = entry.payload().getBytes(StandardCharsets.UTF_8);
+            int recordBytes = writeMessage(entry.id(), url, body);
+            pending.put(entry.id(), new Entry(entry.id(), entry.webhookUrl(), entry.payload(), active, recordBytes));
+            active.track(recordBytes);
+            segment.untrack(entry.recordBytes());
+        }
+
+        // The copies must be on disk before the originals go away
+        active.buffer.force();
+        log.debug("Moved {} undelivered messages out of webhook outbox segment {}", moved.size(), segment.path);
+    }
+
+    private int writeMessage(long id, byte[] url, byte[] body) {
+        ByteBuffer record = record(MESSAGE, id, Integer.BYTES + url.length + body.length);
+        record.putInt(url.length).put(url).put(body);
+        return write(record);
+    }
+
+    /**
+     * Starts a record; the caller fills in the data and {@link #write(ByteBuffer)} seals it with the checksum.
+     */
+    private static ByteBuffer record(byte type, long id, int dataBytes) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + Byte.BYTES + Long.BYTES + dataBytes);
+        record.position(HEADER_BYTES);
+        record.put(type).putLong(id);
+        return record;
+    }
+
+    private int write(ByteBuffer record) {
+        int bodyBytes = record.position() - HEADER_BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER_BYTES, bodyBytes);
+        record.putInt(0, bodyBytes).putInt(Integer.BYTES, (int) crc.getValue());
+        record.flip();
+
+        if (active.buffer.remaining() < record.remaining()) {
+            rotate(record.remaining());
+        }
+
+        active.buffer.put(record);
+        active.dirty = true;
+        return record.limit();
+    }
+
+    private void rotate(int minimumBytes) {
+        Segment previous = active;
+        previous.buffer.force();
+        closeQuietly(previous);
+        segments.addLast(previous);
+
+        // Everything written so far is on disk now
+        durableId = writtenId;
+        lock.notifyAll();
+
+        active = createSegment(previous.index + 1, Math.max(segmentBytes, minimumBytes + HEADER_BYTES));
+    }
+
+    private Segment createSegment(long index, int size) {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        Segment segment = new Segment(index, path);
+
+        try {
+            segment.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment.buffer = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to create webhook outbox segment " + path, exception);
+        }
+
+        return segment;
+    }
+
+    private void replay(Segment segment) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int bodyBytes = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (bodyBytes < Byte.BYTES + Long.BYTES || bodyBytes > buffer.remaining()) {
+                break;
+            }
+
+            ByteBuffer body = buffer.slice(buffer.position(), bodyBytes);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Webhook outbox segment {} ends in a torn record at offset {}", segment.path, start);
+                break;
+            }
+            buffer.position(buffer.position() + bodyBytes);
+
+            byte type = body.get();
+            long id = body.getLong();
+            nextId = Math.max(nextId, id + 1);
+
+            if (type == MESSAGE) {
+                byte[] url = new byte[body.getInt()];
+                body.get(url);
+                byte[] payload = new byte[body.remaining()];
+                body.get(payload);
+
+                int recordBytes = HEADER_BYTES + bodyBytes;
+                Entry previous = pending.put(id, new Entry(id, new String(url, StandardCharsets.UTF_8),
+                    new String(payload, StandardCharsets.UTF_8), segment, recordBytes));
+                if (previous != null) {
+                    // A copy made by compaction
+                    previous.segment().untrack(previous.recordBytes());
+                }
+                segment.track(recordBytes);
+            } else if (type == ACK) {
+                Entry entry = pending.remove(id);
+                if (entry != null) {
+                    entry.segment().untrack(entry.recordBytes());
+                }
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Webhook outbox in " + directory + " is closed");
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            if (segment.channel != null) {
+                segment.channel.close();
+            }
+        } catch (IOException exception) {
+            log.debug("Failed to close webhook outbox segment {}", segment.path, exception);
+        }
+    }
+
+    /**
+     * A message that has not been acknowledged yet.
+     */
+    record Entry(long id, String webhookUrl, String payload, Segment segment, int recordBytes) {
+    }
+
+    static final class Segment {
+
+        private final long index;
+        private final Path path;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private boolean dirty;
+        private int pendingCount;
+        private long pendingBytes;
+
+        private Segment(long index, Path path) {
+            this.index = index;
+            this.path = path;
+        }
+
+        private void track(int recordBytes) {
+            pendingCount++;
+            pendingBytes += recordBytes;
+        }
+
+        private void untrack(int recordBytes) {
+            pendingCount--;
+            pendingBytes -= recordBytes;
+        }
+    }
+}
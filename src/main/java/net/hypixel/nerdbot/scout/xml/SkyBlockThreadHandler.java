@@ -20,7 +20,7 @@ public class SkyBlockThreadHandler extends DefaultHandler {
     private static final String LINK = "link";
     private static final String GUID = "guid";
     private static final String CREATOR = "dc:creator";
-    private static String forum = null;
+    private String forum;
     @Getter
     private SkyBlockThreadParser.SkyBlockForum skyBlockForum;
     private StringBuilder elementValue;
@@ -0,0 +1,191 @@
+package net.hypixel.nerdbot.scout.xml;
+
+import lombok.extern.slf4j.Slf4j;
+import net.hypixel.nerdbot.scout.xml.SkyBlockThreadParser.HypixelThread;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Incremental StAX parser for the forum RSS feed.
+ * <p>
+ * Items are read one at a time and an item whose GUID is at or below the known high-water GUID is dropped as soon as
+ * its GUID is read, so seen threads are never kept around. The whole feed is always scanned: forum feeds are ordered
+ * by last activity rather than by GUID, so an old thread that was bumped to the top says nothing about the items
+ * below it.
+ * <p>
+ * New threads are not handed to the consumer while the feed is being read. They are buffered (there are only ever a
+ * few) and emitted in ascending GUID order once the feed is done, so a high-water mark advanced per thread never skips
+ * a newer thread that happened to appear earlier in the feed.
+ * <p>
+ * The {@link XMLInputFactory} is configured once and shared; each parse gets its own reader and state, so feeds can
+ * be parsed concurrently.
+ */
+@Slf4j
+public final class SkyBlockThreadStreamParser {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static final String CHANNEL = "channel";
+    private static final String ITEM = "item";
+    private static final String TITLE = "title";
+    private static final String PUBDATE = "pubDate";
+    private static final String LINK = "link";
+    private static final String GUID = "guid";
+    private static final String CREATOR = "creator";
+
+    private SkyBlockThreadStreamParser() {
+    }
+
+    /**
+     * Emits every thread with a GUID above {@code highWaterGuid}, in ascending GUID order.
+     *
+     * @return the number of threads emitted
+     */
+    public static int parseNewThreads(String xml, int highWaterGuid, Consumer<HypixelThread> consumer) {
+        return parseNewThreads(new StringReader(xml), highWaterGuid, consumer);
+    }
+
+    /**
+     * Emits every thread with a GUID above {@code highWaterGuid}, in ascending GUID order.
+     *
+     * @return the number of threads emitted
+     */
+    public static int parseNewThreads(Reader xml, int highWaterGuid, Consumer<HypixelThread> consumer) {
+        try {
+            return parseNewThreads(INPUT_FACTORY.createXMLStreamReader(xml), highWaterGuid, consumer);
+        } catch (XMLStreamException exception) {
+            log.error("Failed to parse forum feed: {}", exception.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Emits every thread with a GUID above {@code highWaterGuid}, in ascending GUID order, reading straight from a
+     * stream such as a response body. The stream is not closed.
+     *
+     * @return the number of threads emitted
+     */
+    public static int parseNewThreads(InputStream xml, int highWaterGuid, Consumer<HypixelThread> consumer) {
+        try {
+            return parseNewThreads(INPUT_FACTORY.createXMLStreamReader(xml), highWaterGuid, consumer);
+        } catch (XMLStreamException exception) {
+            log.error("Failed to parse forum feed: {}", exception.getMessage());
+            return 0;
+        }
+    }
+
+    private static int parseNewThreads(XMLStreamReader reader, int highWaterGuid, Consumer<HypixelThread> consumer) {
+        List<HypixelThread> newThreads = new ArrayList<>();
+
+        try {
+            readNewThreads(reader, highWaterGuid, newThreads);
+        } catch (XMLStreamException | NumberFormatException exception) {
+            log.error("Failed to parse forum feed: {}", exception.getMessage());
+            return 0;
+        } finally {
+            close(reader);
+        }
+
+        newThreads.sort(Comparator.comparingInt(HypixelThread::getGuid));
+        newThreads.forEach(consumer);
+        return newThreads.size();
+    }
+
+    private static void readNewThreads(XMLStreamReader reader, int highWaterGuid, List<HypixelThread> newThreads) throws XMLStreamException {
+        String forum = null;
+        HypixelThread thread = null;
+        boolean inChannel = false;
+        boolean seen = false;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT && ITEM.equals(reader.getLocalName()) && thread != null) {
+                if (!seen) {
+                    newThreads.add(thread);
+                }
+                thread = null;
+                seen = false;
+                continue;
+            }
+
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            String name = reader.getLocalName();
+            String prefix = reader.getPrefix();
+
+            if (thread == null) {
+                switch (name) {
+                    case CHANNEL -> inChannel = true;
+                    case ITEM -> {
+                        thread = new HypixelThread();
+                        thread.setForum(forum);
+                    }
+                    case TITLE -> {
+                        if (inChannel && forum == null) {
+                            forum = reader.getElementText();
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                continue;
+            }
+
+            if (seen) {
+                // The rest of an item that has been handled before is of no interest
+                continue;
+            }
+
+            switch (name) {
+                case TITLE -> thread.setTitle(reader.getElementText());
+                case PUBDATE -> thread.setPublicationDate(reader.getElementText());
+                case LINK -> {
+                    if (prefix == null || prefix.isEmpty()) {
+                        thread.setLink(reader.getElementText());
+                    }
+                }
+                case GUID -> {
+                    int guid = Integer.parseInt(reader.getElementText().trim());
+                    seen = guid <= highWaterGuid;
+                    thread.setGuid(guid);
+                }
+                case CREATOR -> thread.setCreator(reader.getElementText());
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+
+        try {
+            reader.close();
+        } catch (XMLStreamException exception) {
+            log.debug("Failed to close forum feed reader", exception);
+        }
+    }
+}
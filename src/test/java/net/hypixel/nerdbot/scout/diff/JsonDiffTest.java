@@ -0,0 +1,168 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonDiffTest {
+
+    private static List<JsonChange> diff(String oldJson, String newJson) {
+        return JsonDiff.diff(oldJson, newJson, ArrayKeys.NONE);
+    }
+
+    @Test
+    void identicalDocumentsHaveNoChanges() {
+        String json = "{\"a\":1,\"b\":[true,null,\"x\"],\"c\":{\"d\":2.5}}";
+
+        assertTrue(diff(json, json).isEmpty());
+    }
+
+    @Test
+    void reportsChangedScalarsByPointer() {
+        List<JsonChange> changes = diff("{\"a\":{\"b\":1,\"c\":\"x\"}}", "{\"a\":{\"b\":2,\"c\":\"x\"}}");
+
+        assertEquals(1, changes.size());
+        assertEquals("/a/b", changes.get(0).path());
+        assertEquals(new JsonPrimitive(1), changes.get(0).oldValue());
+        assertEquals(new JsonPrimitive(2), changes.get(0).newValue());
+    }
+
+    @Test
+    void ignoresReorderedMembers() {
+        assertTrue(diff("{\"a\":1,\"b\":{\"c\":2},\"d\":3}", "{\"d\":3,\"b\":{\"c\":2},\"a\":1}").isEmpty());
+    }
+
+    @Test
+    void comparesReorderedMembersByName() {
+        List<JsonChange> changes = diff("{\"a\":1,\"b\":2}", "{\"b\":3,\"a\":1}");
+
+        assertEquals(List.of(new JsonChange("/b", new JsonPrimitive(2), new JsonPrimitive(3))), changes);
+    }
+
+    @Test
+    void reportsAddedAndRemovedMembers() {
+        List<JsonChange> changes = diff("{\"a\":1,\"b\":2}", "{\"a\":1,\"c\":3}");
+
+        assertEquals(2, changes.size());
+        assertEquals("/b", changes.get(0).path());
+        assertTrue(changes.get(0).isRemoved());
+        assertEquals("/c", changes.get(1).path());
+        assertTrue(changes.get(1).isAdded());
+    }
+
+    @Test
+    void treatsEquivalentNumbersAsEqual() {
+        assertTrue(diff("{\"a\":1,\"b\":[1e2]}", "{\"a\":1.0,\"b\":[100]}").isEmpty());
+    }
+
+    @Test
+    void treatsEquivalentNumbersAsEqualInReorderedMembers() {
+        assertTrue(diff("{\"a\":{\"x\":1},\"b\":2}", "{\"b\":2.00,\"a\":{\"x\":1.0}}").isEmpty());
+    }
+
+    @Test
+    void reportsTypeChanges() {
+        List<JsonChange> changes = diff("{\"a\":1,\"b\":{\"c\":1},\"d\":null}", "{\"a\":\"1\",\"b\":[1],\"d\":false}");
+
+        assertEquals(3, changes.size());
+        assertEquals(new JsonChange("/a", new JsonPrimitive(1), new JsonPrimitive("1")), changes.get(0));
+        assertEquals("/b", changes.get(1).path());
+        assertTrue(changes.get(1).oldValue().isJsonObject());
+        assertTrue(changes.get(1).newValue().isJsonArray());
+        assertEquals("/d", changes.get(2).path());
+        assertTrue(changes.get(2).oldValue().isJsonNull());
+    }
+
+    @Test
+    void comparesUnkeyedArraysByIndex() {
+        List<JsonChange> changes = diff("[1,2]", "[0,1,2]");
+
+        assertEquals(List.of(
+            new JsonChange("/0", new JsonPrimitive(1), new JsonPrimitive(0)),
+            new JsonChange("/1", new JsonPrimitive(2), new JsonPrimitive(1)),
+            new JsonChange("/2", null, new JsonPrimitive(2))
+        ), changes);
+    }
+
+    @Test
+    void reportsOnlyTheInsertedElementAtTheHeadOfAKeyedArray() {
+        ArrayKeys keys = ArrayKeys.of(Map.of("/items", List.of("id")));
+        List<JsonChange> changes = JsonDiff.diff(
+            "{\"items\":[{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"}]}",
+            "{\"items\":[{\"id\":0,\"v\":\"z\"},{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"}]}",
+            keys
+        );
+
+        assertEquals(1, changes.size());
+        assertEquals("/items/0", changes.get(0).path());
+        assertTrue(changes.get(0).isAdded());
+    }
+
+    @Test
+    void matchesReorderedKeyedElementsAndDiffsTheirMembers() {
+        ArrayKeys keys = ArrayKeys.of(Map.of("/items", List.of("id")));
+        List<JsonChange> changes = JsonDiff.diff(
+            "{\"items\":[{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"}]}",
+            "{\"items\":[{\"id\":2,\"v\":\"c\"},{\"id\":1,\"v\":\"a\"}]}",
+            keys
+        );
+
+        assertEquals(List.of(new JsonChange("/items/0/v", new JsonPrimitive("b"), new JsonPrimitive("c"))), changes);
+    }
+
+    @Test
+    void keysNestedArraysThroughWildcards() {
+        ArrayKeys keys = ArrayKeys.of(Map.of("/products/*/tags", List.of("name")));
+        List<JsonChange> changes = JsonDiff.diff(
+            "{\"products\":[{\"tags\":[{\"name\":\"a\"},{\"name\":\"b\"}]}]}",
+            "{\"products\":[{\"tags\":[{\"name\":\"b\"},{\"name\":\"a\"}]}]}",
+            keys
+        );
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void escapesMemberNamesInPointers() {
+        List<JsonChange> changes = diff("{\"a/b\":{\"c~d\":1}}", "{\"a/b\":{\"c~d\":2}}");
+
+        assertEquals("/a~1b/c~0d", changes.get(0).path());
+    }
+
+    @Test
+    void diffsRootScalars() {
+        List<JsonChange> changes = diff("1", "2");
+
+        assertEquals(1, changes.size());
+        assertEquals("", changes.get(0).path());
+    }
+
+    @Test
+    void readsChangesLazily() {
+        try (JsonDiff diff = new JsonDiff(new StringReader("[1,2,3]"), new StringReader("[4,2,6]"), null)) {
+            assertEquals("/0", diff.next().path());
+            assertEquals("/2", diff.next().path());
+            assertFalse(diff.hasNext());
+        }
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        assertThrows(JsonParseException.class, () -> diff("{\"a\":1}", "{\"a\":"));
+        assertThrows(JsonParseException.class, () -> diff("{\"a\":1}", "{\"a\" 1}"));
+    }
+
+    @Test
+    void treatsReorderedNullMembersAsEqual() {
+        assertTrue(diff("{\"a\":null,\"b\":1}", "{\"b\":1,\"a\":null}").isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+package net.hypixel.nerdbot.scout.diff;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedListDiffTest {
+
+    private static final KeyedListDiff SALES = new KeyedListDiff("/sales", List.of("item_id", "start"));
+
+    private static JsonArray array(String json) {
+        return JsonParser.parseString(json).getAsJsonArray();
+    }
+
+    private static JsonElement json(String json) {
+        return JsonParser.parseString(json);
+    }
+
+    @Test
+    void ignoresReorderedElements() {
+        KeyedListDiff.Result result = SALES.diff(
+            array("[{\"item_id\":\"A\",\"start\":1},{\"item_id\":\"B\",\"start\":1}]"),
+            array("[{\"item_id\":\"B\",\"start\":1},{\"item_id\":\"A\",\"start\":1}]")
+        );
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void reportsOnlyAnElementInsertedAtTheHead() {
+        KeyedListDiff.Result result = SALES.diff(
+            array("[{\"item_id\":\"A\",\"start\":1},{\"item_id\":\"B\",\"start\":1}]"),
+            array("[{\"item_id\":\"C\",\"start\":2},{\"item_id\":\"A\",\"start\":1},{\"item_id\":\"B\",\"start\":1}]")
+        );
+
+        assertEquals(List.of(json("{\"item_id\":\"C\",\"start\":2}")), result.addedElements());
+        assertEquals("/sales/0", result.added().get(0).path());
+        assertTrue(result.removed().isEmpty());
+        assertTrue(result.modified().isEmpty());
+    }
+
+    @Test
+    void reportsRemovedElementsUnderTheirOldIndex() {
+        KeyedListDiff.Result result = SALES.diff(
+            array("[{\"item_id\":\"A\",\"start\":1},{\"item_id\":\"B\",\"start\":1}]"),
+            array("[{\"item_id\":\"B\",\"start\":1}]")
+        );
+
+        assertEquals(List.of(json("{\"item_id\":\"A\",\"start\":1}")), result.removedElements());
+        assertEquals("/sales/0", result.removed().get(0).path());
+        assertTrue(result.added().isEmpty());
+    }
+
+    @Test
+    void reportsModifiedElementsUnderTheirNewIndex() {
+        KeyedListDiff.Result result = SALES.diff(
+            array("[{\"item_id\":\"A\",\"start\":1,\"price\":10},{\"item_id\":\"B\",\"start\":1,\"price\":5}]"),
+            array("[{\"item_id\":\"B\",\"start\":1,\"price\":6},{\"item_id\":\"A\",\"start\":1,\"price\":10}]")
+        );
+
+        assertEquals(1, result.modified().size());
+        assertEquals("/sales/0", result.modified().get(0).path());
+        assertEquals(json("{\"item_id\":\"B\",\"start\":1,\"price\":5}"), result.modified().get(0).oldValue());
+        assertTrue(result.added().isEmpty());
+        assertTrue(result.removed().isEmpty());
+    }
+
+    @Test
+    void treatsEveryKeyFieldAsPartOfTheIdentity() {
+        KeyedListDiff.Result result = SALES.diff(
+            array("[{\"item_id\":\"A\",\"start\":1}]"),
+            array("[{\"item_id\":\"A\",\"start\":2}]")
+        );
+
+        assertEquals(1, result.added().size());
+        assertEquals(1, result.removed().size());
+        assertTrue(result.modified().isEmpty());
+    }
+
+    @Test
+    void pairsDuplicateKeysInOrder() {
+        KeyedListDiff byId = new KeyedListDiff("/items", List.of("id"));
+        KeyedListDiff.Result unchanged = byId.diff(
+            array("[{\"id\":1,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"}]"),
+            array("[{\"id\":1,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"}]")
+        );
+        KeyedListDiff.Result oneMore = byId.diff(
+            array("[{\"id\":1,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"}]"),
+            array("[{\"id\":1,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"},{\"id\":1,\"v\":\"c\"}]")
+        );
+
+        assertTrue(unchanged.isEmpty());
+        assertEquals(List.of(json("{\"id\":1,\"v\":\"c\"}")), oneMore.addedElements());
+        assertTrue(oneMore.removed().isEmpty());
+        assertTrue(oneMore.modified().isEmpty());
+    }
+
+    @Test
+    void pairsDuplicateKeysInOrderWithinJsonDiff() {
+        ArrayKeys keys = ArrayKeys.of(Map.of("/items", List.of("id")));
+
+        assertTrue(JsonDiff.diff(
+            "{\"items\":[{\"id\":1,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"}]}",
+            "{\"items\":[{\"id\":1,\"v\":\"a\"},{\"id\":1,\"v\":\"b\"}]}",
+            keys
+        ).isEmpty());
+    }
+
+    @Test
+    void matchesElementsWithoutKeyFieldsByIndex() {
+        KeyedListDiff byId = new KeyedListDiff("/items", List.of("id"));
+        KeyedListDiff.Result result = byId.diff(array("[\"x\",{\"v\":1}]"), array("[\"y\",{\"v\":1}]"));
+
+        assertEquals(1, result.modified().size());
+        assertEquals("/items/0", result.modified().get(0).path());
+    }
+
+    @Test
+    void treatsEquivalentNumbersAsEqual() {
+        KeyedListDiff byId = new KeyedListDiff("/items", List.of("id"));
+
+        assertTrue(byId.diff(array("[{\"id\":\"a\",\"price\":1}]"), array("[{\"id\":\"a\",\"price\":1.0}]")).isEmpty());
+    }
+
+    @Test
+    void treatsMissingArraysAsEmpty() {
+        KeyedListDiff.Result result = SALES.diff(null, array("[{\"item_id\":\"A\",\"start\":1}]"));
+
+        assertEquals(1, result.added().size());
+        assertTrue(SALES.diff(null, null).isEmpty());
+    }
+
+    @Test
+    void selectsTheArrayAtItsPointer() {
+        JsonElement root = json("{\"sales\":[{\"item_id\":\"A\"}],\"other\":{}}");
+
+        assertEquals(array("[{\"item_id\":\"A\"}]"), SALES.select(root));
+        assertNull(new KeyedListDiff("/other", List.of("id")).select(root));
+        assertNull(new KeyedListDiff("/missing", List.of("id")).select(root));
+    }
+
+    @Test
+    void requiresAKeyField() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyedListDiff("/sales", List.of()));
+    }
+}
@@ -0,0 +1,92 @@
+package net.hypixel.nerdbot.scout.fetch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ContentDigestTest {
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        return bytes;
+    }
+
+    private static long digest(long seed, byte[] bytes) {
+        ContentDigest digest = new ContentDigest(seed);
+        digest.update(bytes, 0, bytes.length);
+        return digest.getValue();
+    }
+
+    @Test
+    void matchesReferenceVectors() {
+        assertEquals(0xEF46DB3751D8E999L, ContentDigest.of(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, ContentDigest.of("a"));
+        assertEquals(0x44BC2CF5AD770999L, ContentDigest.of("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, ContentDigest.of("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    void matchesReferenceVectorsPastOneStripe() {
+        assertEquals(0xF306F04AA88B54D3L, ContentDigest.of(sequence(1000)));
+    }
+
+    @Test
+    void appliesTheSeed() {
+        assertEquals(0xD5AFBA1336A3BE4BL, new ContentDigest(1).getValue());
+        assertEquals(0x819D2B726001D507L, digest(42, sequence(100)));
+    }
+
+    @Test
+    void hashesTheSameInAnyChunking() {
+        byte[] bytes = sequence(200);
+
+        for (int length = 0; length <= bytes.length; length += 7) {
+            long expected = digest(0, Arrays.copyOf(bytes, length));
+            for (int chunk = 1; chunk <= 40; chunk += 3) {
+                ContentDigest digest = new ContentDigest();
+                for (int offset = 0; offset < length; offset += chunk) {
+                    digest.update(bytes, offset, Math.min(chunk, length - offset));
+                }
+                assertEquals(expected, digest.getValue(), "length " + length + " in chunks of " + chunk);
+            }
+        }
+    }
+
+    @Test
+    void startsOverAfterReset() {
+        ContentDigest digest = new ContentDigest();
+        byte[] bytes = "some earlier content".getBytes(StandardCharsets.UTF_8);
+        digest.update(bytes, 0, bytes.length);
+
+        digest.reset();
+
+        assertEquals(ContentDigest.of(""), digest.getValue());
+    }
+
+    @Test
+    void readingTheValueDoesNotEndTheStream() {
+        byte[] bytes = sequence(100);
+        ContentDigest digest = new ContentDigest();
+        digest.update(bytes, 0, 50);
+        digest.getValue();
+        digest.update(bytes, 50, 50);
+
+        assertEquals(ContentDigest.of(bytes), digest.getValue());
+    }
+
+    @Test
+    void distinguishesSingleByteChanges() {
+        byte[] bytes = sequence(64);
+        long original = ContentDigest.of(bytes);
+        bytes[63] ^= 1;
+
+        assertNotEquals(original, ContentDigest.of(bytes));
+    }
+}
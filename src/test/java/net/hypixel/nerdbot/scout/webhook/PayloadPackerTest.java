@@ -0,0 +1,212 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadPackerTest {
+
+    private static JsonObject json(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+
+    private static JsonObject content(String content) {
+        JsonObject message = new JsonObject();
+        message.addProperty("content", content);
+        return message;
+    }
+
+    private static JsonObject embed(String title) {
+        JsonObject embed = new JsonObject();
+        embed.addProperty("title", title);
+        return embed;
+    }
+
+    private static JsonObject message(String content, JsonObject... embeds) {
+        JsonObject message = content != null ? content(content) : new JsonObject();
+        JsonArray array = new JsonArray();
+        for (JsonObject embed : embeds) {
+            array.add(embed);
+        }
+        message.add("embeds", array);
+        return message;
+    }
+
+    private static JsonArray embeds(JsonObject message) {
+        return message.has("embeds") ? message.getAsJsonArray("embeds") : new JsonArray();
+    }
+
+    private static void assertWithinLimits(JsonObject message) {
+        String content = message.has("content") ? message.get("content").getAsString() : "";
+        assertTrue(content.length() <= PayloadPacker.MAX_CONTENT_LENGTH, "content too long");
+        assertTrue(embeds(message).size() <= PayloadPacker.MAX_EMBEDS, "too many embeds");
+
+        int total = 0;
+        for (JsonElement embed : embeds(message)) {
+            JsonObject object = embed.getAsJsonObject();
+            total += PayloadPacker.embedLength(object);
+            if (object.has("fields")) {
+                assertTrue(object.getAsJsonArray("fields").size() <= PayloadPacker.MAX_FIELDS, "too many fields");
+            }
+            if (object.has("description")) {
+                assertTrue(object.get("description").getAsString().length() <= PayloadPacker.MAX_DESCRIPTION_LENGTH, "description too long");
+            }
+        }
+        assertTrue(total <= PayloadPacker.MAX_TOTAL_EMBED_LENGTH, "embeds too long: " + total);
+    }
+
+    @Test
+    void leavesValidPayloadsAlone() {
+        JsonObject payload = message("<@&1>", embed("A"), embed("B"));
+        payload.addProperty("username", "Scout");
+
+        assertEquals(List.of(payload), PayloadPacker.split(payload));
+    }
+
+    @Test
+    void splitsLongContentAtLineBreaks() {
+        String content = String.join("\n", Collections.nCopies(1000, "line"));
+
+        List<JsonObject> messages = PayloadPacker.split(content(content));
+
+        assertEquals(3, messages.size());
+        messages.forEach(PayloadPackerTest::assertWithinLimits);
+        List<String> chunks = new ArrayList<>();
+        for (JsonObject message : messages) {
+            String text = message.get("content").getAsString();
+            assertTrue(text.startsWith("line") && text.endsWith("line"), "split inside a line");
+            chunks.add(text);
+        }
+        assertEquals(content, String.join("\n", chunks));
+    }
+
+    @Test
+    void continuesEmbedsWithTooManyFields() {
+        JsonObject embed = embed("Fire Sale");
+        embed.addProperty("color", 5);
+        JsonArray fields = new JsonArray();
+        for (int i = 0; i < 60; i++) {
+            fields.add(json("{\"name\":\"ITEM_" + i + "\",\"value\":\"" + "v".repeat(200) + "\"}"));
+        }
+        embed.add("fields", fields);
+
+        List<JsonObject> messages = PayloadPacker.split(message("<@&1>", embed));
+
+        int fieldCount = 0;
+        for (JsonObject message : messages) {
+            assertWithinLimits(message);
+            for (JsonElement part : embeds(message)) {
+                assertEquals("Fire Sale", part.getAsJsonObject().get("title").getAsString());
+                fieldCount += part.getAsJsonObject().getAsJsonArray("fields").size();
+            }
+        }
+        assertEquals(60, fieldCount);
+        assertEquals("<@&1>", messages.get(0).get("content").getAsString());
+        assertEquals(1, messages.stream().filter(message -> message.has("content")).count());
+    }
+
+    @Test
+    void packsManyEmbedsIntoFewMessages() {
+        JsonObject[] many = new JsonObject[25];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = embed("E" + i);
+        }
+
+        List<JsonObject> messages = PayloadPacker.split(message(null, many));
+
+        assertEquals(3, messages.size());
+        assertEquals("E0", embeds(messages.get(0)).get(0).getAsJsonObject().get("title").getAsString());
+        assertEquals("E24", embeds(messages.get(2)).get(4).getAsJsonObject().get("title").getAsString());
+    }
+
+    @Test
+    void truncatesOverlongEmbedText() {
+        JsonObject embed = embed("t".repeat(300));
+        embed.addProperty("description", "d".repeat(5000));
+
+        JsonObject packed = embeds(PayloadPacker.split(message(null, embed)).get(0)).get(0).getAsJsonObject();
+
+        assertEquals(PayloadPacker.MAX_TITLE_LENGTH, packed.get("title").getAsString().length());
+        assertEquals(PayloadPacker.MAX_DESCRIPTION_LENGTH, packed.get("description").getAsString().length());
+        assertTrue(packed.get("description").getAsString().endsWith("…"));
+    }
+
+    @Test
+    void keepsEmbedsWithLongTextOutsideTheirFieldsWithinTheTotal() {
+        JsonObject embed = embed("t".repeat(300));
+        embed.addProperty("description", "d".repeat(5000));
+        embed.add("footer", json("{\"text\":\"" + "f".repeat(3000) + "\"}"));
+        embed.add("author", json("{\"name\":\"" + "n".repeat(300) + "\"}"));
+        JsonArray fields = new JsonArray();
+        for (int i = 0; i < 3; i++) {
+            fields.add(json("{\"name\":\"k\",\"value\":\"" + "v".repeat(900) + "\"}"));
+        }
+        embed.add("fields", fields);
+
+        List<JsonObject> messages = PayloadPacker.split(message(null, embed));
+
+        int fieldCount = 0;
+        for (JsonObject message : messages) {
+            assertWithinLimits(message);
+            for (JsonElement part : embeds(message)) {
+                JsonObject object = part.getAsJsonObject();
+                fieldCount += object.has("fields") ? object.getAsJsonArray("fields").size() : 0;
+            }
+        }
+        assertEquals(3, fieldCount);
+    }
+
+    @Test
+    void mergesContentOnlyMessages() {
+        assertEquals(content("hi\nthere"), PayloadPacker.merge(content("hi"), content("there")));
+    }
+
+    @Test
+    void keepsRepeatedTextOfContentOnlyMessages() {
+        assertEquals(content("hi\nhi"), PayloadPacker.merge(content("hi"), content("hi")));
+    }
+
+    @Test
+    void sendsAMentionSharedByEmbedMessagesOnce() {
+        JsonObject merged = PayloadPacker.merge(message("<@&1>", embed("A")), message("<@&1>", embed("B")));
+
+        assertEquals(message("<@&1>", embed("A"), embed("B")), merged);
+    }
+
+    @Test
+    void doesNotMoveTextAboveEarlierEmbeds() {
+        assertNull(PayloadPacker.merge(message("<@&1>", embed("A")), content("<@&1>")));
+        assertNull(PayloadPacker.merge(message(null, embed("A")), content("later")));
+    }
+
+    @Test
+    void doesNotMergeMessagesWithDifferentProperties() {
+        JsonObject first = content("a");
+        first.addProperty("username", "One");
+        JsonObject second = content("b");
+        second.addProperty("username", "Two");
+
+        assertNull(PayloadPacker.merge(first, second));
+    }
+
+    @Test
+    void doesNotMergePastTheLimits() {
+        assertNull(PayloadPacker.merge(content("a".repeat(1500)), content("b".repeat(600))));
+
+        JsonObject[] six = new JsonObject[6];
+        for (int i = 0; i < six.length; i++) {
+            six[i] = embed("E" + i);
+        }
+        assertNull(PayloadPacker.merge(message(null, six), message(null, six)));
+    }
+}
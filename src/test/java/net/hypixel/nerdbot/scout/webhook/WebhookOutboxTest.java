@@ -0,0 +1,184 @@
+package net.hypixel.nerdbot.scout.webhook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookOutboxTest {
+
+    private static final String URL = "https://discord.com/api/webhooks/1/token";
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private WebhookOutbox open() throws IOException {
+        return WebhookOutbox.open(directory, SEGMENT_BYTES, 1);
+    }
+
+    private static List<String> payloads(WebhookOutbox outbox) {
+        return outbox.pending().stream().map(WebhookOutbox.Entry::payload).toList();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    @Test
+    void replaysUnacknowledgedMessagesInOrder() throws Exception {
+        try (WebhookOutbox outbox = open()) {
+            long first = outbox.append(URL, "{\"content\":\"one\"}");
+            long second = outbox.append(URL, "{\"content\":\"two\"}");
+            outbox.append(URL + "2", "{\"content\":\"three\"}");
+            outbox.awaitDurable(second);
+            outbox.acknowledge(List.of(first));
+        }
+
+        try (WebhookOutbox outbox = open()) {
+            List<WebhookOutbox.Entry> pending = outbox.pending();
+
+            assertEquals(List.of("{\"content\":\"two\"}", "{\"content\":\"three\"}"), payloads(outbox));
+            assertEquals(URL, pending.get(0).webhookUrl());
+            assertEquals(URL + "2", pending.get(1).webhookUrl());
+        }
+    }
+
+    @Test
+    void keepsIdsUniqueAcrossRestarts() throws Exception {
+        long before;
+        try (WebhookOutbox outbox = open()) {
+            before = outbox.append(URL, "{}");
+        }
+
+        try (WebhookOutbox outbox = open()) {
+            long after = outbox.append(URL, "{}");
+
+            assertTrue(after > before);
+            assertEquals(2, outbox.pending().size());
+        }
+    }
+
+    @Test
+    void forgetsAcknowledgedMessagesAfterARestart() throws Exception {
+        try (WebhookOutbox outbox = open()) {
+            long id = outbox.append(URL, "{\"content\":\"given up on\"}");
+            outbox.acknowledge(List.of(id));
+        }
+
+        try (WebhookOutbox outbox = open()) {
+            assertTrue(outbox.pending().isEmpty());
+        }
+    }
+
+    @Test
+    void stopsReplayingAtATornRecord() throws Exception {
+        try (WebhookOutbox outbox = open()) {
+            outbox.append(URL, "{\"content\":\"intact\"}");
+            outbox.append(URL, "{\"content\":\"torn\"}");
+        }
+
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        int torn = indexOf(bytes, "torn".getBytes(StandardCharsets.UTF_8));
+        bytes[torn] ^= 1;
+        Files.write(segment, bytes);
+
+        try (WebhookOutbox outbox = open()) {
+            assertEquals(List.of("{\"content\":\"intact\"}"), payloads(outbox));
+        }
+    }
+
+    @Test
+    void replaysMessagesSpreadOverSeveralSegments() throws Exception {
+        String payload = "{\"content\":\"" + "x".repeat(1000) + "\"}";
+        List<Long> kept = new ArrayList<>();
+
+        try (WebhookOutbox outbox = open()) {
+            for (int i = 0; i < 12; i++) {
+                long id = outbox.append(URL, payload);
+                if (i % 3 == 0) {
+                    kept.add(id);
+                } else {
+                    outbox.acknowledge(List.of(id));
+                }
+            }
+        }
+
+        try (WebhookOutbox outbox = open()) {
+            assertEquals(kept, outbox.pending().stream().map(WebhookOutbox.Entry::id).toList());
+        }
+    }
+
+    @Test
+    void removesSegmentsOnceEverythingInThemIsAcknowledged() throws Exception {
+        String payload = "{\"content\":\"" + "x".repeat(1000) + "\"}";
+
+        try (WebhookOutbox outbox = open()) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                ids.add(outbox.append(URL, payload));
+            }
+            assertTrue(segments().size() > 1);
+
+            outbox.acknowledge(ids);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (segments().size() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, segments().size());
+        }
+    }
+
+    @Test
+    void copiesAFewStuckMessagesForwardSoTheirSegmentCanGo() throws Exception {
+        String payload = "{\"content\":\"" + "x".repeat(1000) + "\"}";
+
+        try (WebhookOutbox outbox = open()) {
+            long stuck = outbox.append(URL, "{\"content\":\"stuck\"}");
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                ids.add(outbox.append(URL, payload));
+            }
+            Path oldest = segments().get(0);
+
+            outbox.acknowledge(ids);
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (Files.exists(oldest) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertTrue(Files.notExists(oldest));
+            assertEquals(List.of(stuck), outbox.pending().stream().map(WebhookOutbox.Entry::id).toList());
+        }
+
+        try (WebhookOutbox outbox = open()) {
+            assertEquals(List.of("{\"content\":\"stuck\"}"), payloads(outbox));
+        }
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("Record not found");
+    }
+}